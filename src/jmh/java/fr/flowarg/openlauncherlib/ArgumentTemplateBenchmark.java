@@ -0,0 +1,108 @@
+package fr.flowarg.openlauncherlib;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares the placeholder substitution of {@link NoFramework} before and after {@link ArgumentTemplate},
+ * on the string arguments of the 1.20.1 vanilla and Forge 47.2.0 version JSONs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgumentTemplateBenchmark
+{
+    private final Map<String, Function<JSONObject, String>> keyValue = new HashMap<>();
+    private final List<String> arguments = new ArrayList<>();
+    private JSONObject vanilla;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        this.vanilla = readFixture("/versions/1.20.1.json");
+        final JSONObject forge = readFixture("/versions/1.20.1-forge-47.2.0.json");
+
+        for (JSONObject object : Arrays.asList(this.vanilla, forge))
+        {
+            for (String type : Arrays.asList("jvm", "game"))
+            {
+                for (Object element : object.getJSONObject("arguments").getJSONArray(type))
+                {
+                    if(element instanceof String && !((String)element).contains("${version_name}.jar"))
+                        this.arguments.add((String)element);
+                }
+            }
+        }
+
+        this.keyValue.put("${library_directory}", vanilla -> "/home/user/.minecraft/libraries");
+        this.keyValue.put("${classpath_separator}", vanilla -> File.pathSeparator);
+        this.keyValue.put("${auth_player_name}", vanilla -> "Player");
+        this.keyValue.put("${version_name}", vanilla -> vanilla.getString("id"));
+        this.keyValue.put("${game_directory}", vanilla -> "/home/user/.minecraft");
+        this.keyValue.put("${assets_root}", vanilla -> "/home/user/.minecraft/assets");
+        this.keyValue.put("${assets_index_name}", vanilla -> vanilla.getJSONObject("assetIndex").getString("id"));
+        this.keyValue.put("${auth_uuid}", vanilla -> "069a79f444e94726a5befca90e38aaf5");
+        this.keyValue.put("${auth_access_token}", vanilla -> "eyJhbGciOiJIUzI1NiJ9.e30.token");
+        this.keyValue.put("${user_type}", vanilla -> "msa");
+        this.keyValue.put("${version_type}", vanilla -> "release");
+        this.keyValue.put("${clientid}", vanilla -> "client-id");
+        this.keyValue.put("${auth_xuid}", vanilla -> "2535428504476914");
+        this.keyValue.put("${natives_directory}", vanilla -> "/home/user/.minecraft/natives");
+    }
+
+    /**
+     * The previous implementation: one {@link String#replace} per known placeholder and per argument.
+     */
+    @Benchmark
+    public void replaceLoop(Blackhole blackhole)
+    {
+        for (String argument : this.arguments)
+        {
+            String result = argument;
+            for (Map.Entry<String, Function<JSONObject, String>> entry : this.keyValue.entrySet())
+                result = result.replace(entry.getKey(), entry.getValue().apply(this.vanilla));
+            blackhole.consume(result);
+        }
+    }
+
+    @Benchmark
+    public void compiledTemplate(Blackhole blackhole)
+    {
+        final Map<String, String> resolved = new HashMap<>();
+        for (String argument : this.arguments)
+        {
+            blackhole.consume(ArgumentTemplate.compile(argument).render(key -> {
+                final Function<JSONObject, String> function = this.keyValue.get(key);
+                return function == null ? null : resolved.computeIfAbsent(key, k -> function.apply(this.vanilla));
+            }));
+        }
+    }
+
+    static JSONObject readFixture(String name) throws IOException
+    {
+        try(final InputStream stream = ArgumentTemplateBenchmark.class.getResourceAsStream(name))
+        {
+            if(stream == null) throw new IOException("Missing fixture " + name);
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return new JSONObject(new String(out.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+}
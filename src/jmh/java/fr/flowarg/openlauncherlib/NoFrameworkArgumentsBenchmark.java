@@ -0,0 +1,89 @@
+package fr.flowarg.openlauncherlib;
+
+import fr.theshark34.openlauncherlib.configuration.api.json.VersionJSON;
+import fr.theshark34.openlauncherlib.minecraft.AuthInfos;
+import fr.theshark34.openlauncherlib.minecraft.GameFolder;
+import fr.theshark34.openlauncherlib.util.metrics.LaunchMetrics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the arguments of a launch with {@link NoFramework}, for the 1.20.1 vanilla version alone
+ * and with the Forge 47.2.0 and Fabric 0.14.22 loaders.
+ * {@link #createPlan} is the cold path (the placeholders substituted while building a {@link LaunchPlan}),
+ * {@link #resolvePlan} the warm one (the authentication placeholders substituted on a cached plan).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoFrameworkArgumentsBenchmark
+{
+    /** A loader without anything to add, to launch the vanilla version alone. */
+    private static final String NO_LOADER = "{\"id\": \"1.20.1\", \"mainClass\": \"net.minecraft.client.main.Main\", \"libraries\": [], \"arguments\": {\"jvm\": [], \"game\": []}}";
+
+    @Param({"vanilla", "forge", "fabric"})
+    public String loader;
+
+    private final LaunchMetrics metrics = new LaunchMetrics("benchmark");
+    private NoFramework noFramework;
+    private VersionJSON vanilla;
+    private VersionJSON version;
+    private LaunchPlan plan;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        this.noFramework = new NoFramework(Paths.get("/home/user/.minecraft"),
+                new AuthInfos("Player", "eyJhbGciOiJIUzI1NiJ9.e30.token", "069a79f444e94726a5befca90e38aaf5", "2535428504476914", "client-id"),
+                GameFolder.FLOW_UPDATER);
+
+        this.vanilla = readFixture("/versions/1.20.1.json");
+        switch (this.loader)
+        {
+            case "forge":
+                this.version = readFixture("/versions/1.20.1-forge-47.2.0.json");
+                break;
+            case "fabric":
+                this.version = readFixture("/versions/fabric-loader-0.14.22-1.20.1.json");
+                break;
+            default:
+                this.version = VersionJSON.read(new StringReader(NO_LOADER));
+        }
+
+        this.plan = this.noFramework.createPlan(this.vanilla, this.version, this.metrics);
+    }
+
+    @Benchmark
+    public void createPlan(Blackhole blackhole)
+    {
+        final LaunchPlan plan = this.noFramework.createPlan(this.vanilla, this.version, this.metrics);
+        blackhole.consume(plan.getVmArgs());
+        blackhole.consume(plan.getArgs());
+    }
+
+    @Benchmark
+    public void resolvePlan(Blackhole blackhole)
+    {
+        final NoFramework.Parameters parameters = new NoFramework.Parameters();
+        blackhole.consume(this.noFramework.resolve(this.plan.getVmArgs(), parameters));
+        blackhole.consume(this.noFramework.resolve(this.plan.getArgs(), parameters));
+    }
+
+    private static VersionJSON readFixture(String name) throws IOException
+    {
+        try(final InputStream stream = NoFrameworkArgumentsBenchmark.class.getResourceAsStream(name))
+        {
+            if(stream == null) throw new IOException("Missing fixture " + name);
+
+            return VersionJSON.read(new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)));
+        }
+    }
+}
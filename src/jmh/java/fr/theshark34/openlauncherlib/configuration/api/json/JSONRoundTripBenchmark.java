@@ -0,0 +1,80 @@
+package fr.theshark34.openlauncherlib.configuration.api.json;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Reads the vanilla, Forge and Fabric version JSONs with {@link JSONReader} and writes them back with
+ * {@link JSONWriter}, in memory so only the parsing and the formatting are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JSONRoundTripBenchmark
+{
+    private static final Logger LOGGER = Logger.getLogger("OpenLauncherLib");
+
+    @Param({"1.20.1.json", "1.20.1-forge-47.2.0.json", "fabric-loader-0.14.22-1.20.1.json"})
+    public String fixture;
+
+    private byte[] content;
+    private JSONObject object;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        try(final InputStream stream = JSONRoundTripBenchmark.class.getResourceAsStream("/versions/" + this.fixture))
+        {
+            if(stream == null) throw new IOException("Missing fixture " + this.fixture);
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            this.content = out.toByteArray();
+        }
+        this.object = this.parse();
+    }
+
+    private JSONObject parse() throws IOException
+    {
+        return new JSONReader(LOGGER, new BufferedReader(new InputStreamReader(new ByteArrayInputStream(this.content), StandardCharsets.UTF_8))).toJSONObject();
+    }
+
+    private String format(JSONObject object) throws IOException
+    {
+        final StringWriter out = new StringWriter(this.content.length);
+        try(final JSONWriter writer = new JSONWriter(new BufferedWriter(out)))
+        {
+            writer.write(object);
+        }
+        return out.toString();
+    }
+
+    @Benchmark
+    public JSONObject read() throws IOException
+    {
+        return this.parse();
+    }
+
+    @Benchmark
+    public String write() throws IOException
+    {
+        return this.format(this.object);
+    }
+
+    @Benchmark
+    public String roundTrip() throws IOException
+    {
+        return this.format(this.parse());
+    }
+}
@@ -0,0 +1,88 @@
+package fr.theshark34.openlauncherlib.configuration.api.json;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Reads the fields needed by the launcher from a version JSON, with {@link JSONReader} (whole file then a DOM)
+ * and with {@link VersionJSON} (streaming). Run it with <code>-prof gc</code> to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionJSONBenchmark
+{
+    private static final Logger LOGGER = Logger.getLogger("OpenLauncherLib");
+
+    @Param({"1.20.1.json", "1.20.1-forge-47.2.0.json"})
+    public String fixture;
+
+    private byte[] content;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        try(final InputStream stream = VersionJSONBenchmark.class.getResourceAsStream("/versions/" + this.fixture))
+        {
+            if(stream == null) throw new IOException("Missing fixture " + this.fixture);
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            this.content = out.toByteArray();
+        }
+    }
+
+    private BufferedReader reader()
+    {
+        return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(this.content), StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public void jsonReader(Blackhole blackhole) throws IOException
+    {
+        final JSONObject object = new JSONReader(LOGGER, this.reader()).toJSONObject();
+
+        blackhole.consume(object.optString("mainClass"));
+        final JSONObject assetIndex = object.optJSONObject("assetIndex");
+        if(assetIndex != null) blackhole.consume(assetIndex.getString("id"));
+
+        for (Object library : object.getJSONArray("libraries"))
+            blackhole.consume(((JSONObject)library).getJSONObject("downloads").getJSONObject("artifact").getString("path"));
+
+        final JSONObject arguments = object.getJSONObject("arguments");
+        for (String type : new String[]{"jvm", "game"})
+        {
+            final JSONArray array = arguments.getJSONArray(type);
+            for (Object element : array)
+                if(element instanceof String) blackhole.consume(element);
+        }
+    }
+
+    @Benchmark
+    public void versionJSON(Blackhole blackhole) throws IOException
+    {
+        final VersionJSON version = VersionJSON.read(this.reader());
+
+        blackhole.consume(version.getMainClass());
+        blackhole.consume(version.getAssetIndexId());
+        for (VersionJSON.Library library : version.getLibraries())
+            blackhole.consume(library.getPath());
+        for (String argument : version.getJvmArguments())
+            blackhole.consume(argument);
+        for (String argument : version.getGameArguments())
+            blackhole.consume(argument);
+    }
+}
@@ -0,0 +1,71 @@
+package fr.theshark34.openlauncherlib.configuration.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * A saved {@link SimpleConfiguration#set(Object, String...)} rewrites the whole file, a
+ * {@link JournaledConfiguration} appends one line to its journal (the compaction is left out of the measure).
+ * The configuration holds <code>keys</code> values, like a launcher configuration with its settings and accounts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournaledConfigurationBenchmark
+{
+    @Param({"20", "500"})
+    public int keys;
+
+    private Path directory;
+    private SimpleConfiguration simple;
+    private JournaledConfiguration journaled;
+    private int value;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        final Logger logger = Logger.getLogger("OpenLauncherLib");
+        this.directory = Files.createTempDirectory("oll-configuration");
+        this.simple = new SimpleConfiguration(logger, this.directory.resolve("simple.json"));
+        this.journaled = new JournaledConfiguration(logger, this.directory.resolve("journaled.json"));
+        this.journaled.setCompactDelay(TimeUnit.HOURS.toMillis(1));
+        this.journaled.setMaxRecords(Integer.MAX_VALUE);
+
+        for (int i = 0; i < this.keys; i++)
+        {
+            this.simple.set("value" + i, false, "settings", "key" + i);
+            this.journaled.set("value" + i, false, "settings", "key" + i);
+        }
+        this.simple.save();
+        this.journaled.save();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        this.journaled.close();
+        for (String name : new String[] {"simple.json", "journaled.json", "journaled.json.journal"})
+            Files.deleteIfExists(this.directory.resolve(name));
+        Files.deleteIfExists(this.directory);
+    }
+
+    @Benchmark
+    public void simpleSet()
+    {
+        this.simple.set(this.value++, "settings", "key0");
+    }
+
+    @Benchmark
+    public void journaledSet()
+    {
+        this.journaled.set(this.value++, "settings", "key0");
+    }
+}
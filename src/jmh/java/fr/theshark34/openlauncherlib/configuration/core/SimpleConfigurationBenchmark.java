@@ -0,0 +1,77 @@
+package fr.theshark34.openlauncherlib.configuration.core;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Reads and writes a value <code>depth</code> nodes deep in a {@link SimpleConfiguration} (without a file,
+ * so {@link SimpleConfiguration#set(Object, String...)} doesn't save anything), next to 20 siblings per level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimpleConfigurationBenchmark
+{
+    @Param({"1", "4", "8"})
+    public int depth;
+
+    private SimpleConfiguration configuration;
+    private String[] nodes;
+    private String[] missing;
+    private int value;
+
+    @Setup
+    public void setup()
+    {
+        this.configuration = new SimpleConfiguration(Logger.getLogger("OpenLauncherLib"), new JSONObject());
+        this.nodes = new String[this.depth];
+        for (int i = 0; i < this.depth; i++)
+            this.nodes[i] = "node" + i;
+
+        // Siblings at each level, like a real launcher configuration
+        for (int level = 0; level < this.depth; level++)
+        {
+            final String[] sibling = new String[level + 1];
+            System.arraycopy(this.nodes, 0, sibling, 0, level);
+            for (int s = 0; s < 20; s++)
+            {
+                sibling[level] = "sibling" + s;
+                this.configuration.set("value" + s, false, sibling);
+            }
+        }
+        this.configuration.set(42, false, this.nodes);
+
+        this.missing = this.nodes.clone();
+        this.missing[this.depth - 1] = "missing";
+    }
+
+    @Benchmark
+    public Object get()
+    {
+        return this.configuration.get(0, this.nodes);
+    }
+
+    @Benchmark
+    public Object getMissing()
+    {
+        return this.configuration.get(0, this.missing);
+    }
+
+    @Benchmark
+    public boolean has()
+    {
+        return this.configuration.has(this.nodes);
+    }
+
+    @Benchmark
+    public void set()
+    {
+        this.configuration.set(this.value++, false, this.nodes);
+    }
+}
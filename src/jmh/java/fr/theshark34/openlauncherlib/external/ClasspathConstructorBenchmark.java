@@ -0,0 +1,65 @@
+package fr.theshark34.openlauncherlib.external;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes the classpath string of the 1.20.1 vanilla and Forge 47.2.0 libraries, repeated <code>copies</code>
+ * times under other directories to get the size of a big modpack classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClasspathConstructorBenchmark
+{
+    @Param({"1", "10"})
+    public int copies;
+
+    private ClasspathConstructor constructor;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        final List<String> paths = new ArrayList<>();
+        for (String fixture : new String[]{"/versions/1.20.1.json", "/versions/1.20.1-forge-47.2.0.json"})
+        {
+            try(final InputStream stream = ClasspathConstructorBenchmark.class.getResourceAsStream(fixture))
+            {
+                if(stream == null) throw new IOException("Missing fixture " + fixture);
+
+                for (Object library : new JSONObject(new JSONTokener(stream)).getJSONArray("libraries"))
+                {
+                    final JSONObject artifact = ((JSONObject)library).getJSONObject("downloads").optJSONObject("artifact");
+                    if(artifact != null) paths.add(artifact.getString("path"));
+                }
+            }
+        }
+
+        final List<Path> classPath = new ArrayList<>();
+        for (int i = 0; i < this.copies; i++)
+        {
+            final Path libraries = Paths.get("/home/user/.minecraft/instances/instance" + i + "/libraries");
+            for (String path : paths)
+                classPath.add(libraries.resolve(path));
+        }
+        this.constructor = new ClasspathConstructor(classPath);
+    }
+
+    @Benchmark
+    public String make()
+    {
+        return this.constructor.make();
+    }
+}
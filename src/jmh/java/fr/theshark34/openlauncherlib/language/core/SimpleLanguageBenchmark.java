@@ -0,0 +1,60 @@
+package fr.theshark34.openlauncherlib.language.core;
+
+import fr.theshark34.openlauncherlib.configuration.core.DefaultConfigurationManager;
+import fr.theshark34.openlauncherlib.language.api.Language;
+import fr.theshark34.openlauncherlib.language.api.LanguageInfo;
+import fr.theshark34.openlauncherlib.language.api.LanguageTypes;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Translates a key with the languages of the library, like {@link fr.theshark34.openlauncherlib.util.LogUtil}
+ * does for each message : from the default language, from another one, and a key missing from both
+ * (which falls back to the default language before returning the key).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimpleLanguageBenchmark
+{
+    private static final LanguageInfo IDENTIFIER = () -> "OpenLauncherLib";
+
+    private Language english;
+    private Language french;
+
+    @Setup
+    public void setup()
+    {
+        final Logger logger = Logger.getLogger("OpenLauncherLib");
+        final DefaultLanguageManager manager = new DefaultLanguageManager(logger, new DefaultConfigurationManager(logger));
+        manager.registerLanguage(IDENTIFIER, LanguageTypes.EN, "/assets/languages/");
+        manager.registerLanguage(IDENTIFIER, LanguageTypes.FR, "/assets/languages/");
+        manager.setDefaultLanguage(manager.getLanguage(LanguageTypes.EN));
+
+        this.english = manager.getLanguage(LanguageTypes.EN);
+        this.french = manager.getLanguage(LanguageTypes.FR);
+    }
+
+    @Benchmark
+    public String getDefault()
+    {
+        return this.english.get(IDENTIFIER, "log-err");
+    }
+
+    @Benchmark
+    public String getOther()
+    {
+        return this.french.get(IDENTIFIER, "log-err");
+    }
+
+    @Benchmark
+    public String getMissing()
+    {
+        return this.french.get(IDENTIFIER, "missing-key");
+    }
+}
@@ -0,0 +1,107 @@
+package fr.theshark34.openlauncherlib.util.explorer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lists a synthetic libraries tree of 50 000 jars recursively and keeps the files only, like
+ * {@link fr.theshark34.openlauncherlib.minecraft.MinecraftLauncher} does. The tree is created in a temporary
+ * directory, so the results depend on the file system and on its cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilesUtilBenchmark
+{
+    private static final int GROUPS = 20;
+    private static final int ARTIFACTS = 50;
+    private static final int JARS = 50;
+
+    private Path root;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        // libraries/<group>/<artifact>/<version>/<jar>
+        this.root = Files.createTempDirectory("olllibs");
+        for (int g = 0; g < GROUPS; g++)
+        {
+            for (int a = 0; a < ARTIFACTS; a++)
+            {
+                final Path version = Files.createDirectories(this.root.resolve("group" + g).resolve("artifact" + a).resolve("1.0." + a));
+                for (int j = 0; j < JARS; j++)
+                    Files.createFile(version.resolve("artifact" + a + "-1.0." + a + "-" + j + ".jar"));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        Files.walkFileTree(this.root, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+            {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException
+            {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * The listing used before {@link FilesUtil#walkRecursive(Path)}: one Files.list per directory,
+     * a stat per entry, then another stat per entry to keep the files.
+     */
+    @Benchmark
+    public List<Path> listThenStat()
+    {
+        final List<Path> files = new ArrayList<>();
+        for (Path f : listRecursive(this.root))
+            if (!Files.isDirectory(f))
+                files.add(f);
+        return files;
+    }
+
+    @Benchmark
+    public List<Path> listRecursive()
+    {
+        return FilesUtil.listRecursive(this.root);
+    }
+
+    @Benchmark
+    public List<Path> walkWithAttributes()
+    {
+        return FilesUtil.walkRecursive(this.root).files().get();
+    }
+
+    private static List<Path> listRecursive(Path directory)
+    {
+        final List<Path> files = new ArrayList<>();
+        for (Path f : FilesUtil.list(directory))
+        {
+            if (Files.isDirectory(f)) files.addAll(listRecursive(f));
+            files.add(f);
+        }
+        return files;
+    }
+}
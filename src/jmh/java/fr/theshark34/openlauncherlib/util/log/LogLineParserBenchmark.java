@@ -0,0 +1,81 @@
+package fr.theshark34.openlauncherlib.util.log;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses a batch of 1 000 typical Minecraft log lines (vanilla and Forge formats, with a stack trace),
+ * with {@link LogLineParser} and with the regex it replaces (decoding each line first, as a regex needs).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogLineParserBenchmark
+{
+    private static final String[] LINES = {
+            "[12:00:01] [Render thread/INFO]: Setting user: Player",
+            "[12:00:01] [Worker-Main-2/WARN]: Unknown custom packet identifier: minecraft:brand",
+            "[14Jan2022 12:00:02.123] [main/INFO] [cpw.mods.modlauncher.Launcher/MODLAUNCHER]: ModLauncher running: args [--username, Player]",
+            "[14Jan2022 12:00:02.456] [Render thread/ERROR] [net.minecraftforge.fml.ModLoader/LOADING]: Failed to load mod",
+            "java.lang.IllegalStateException: Broken",
+            "\tat net.minecraft.client.Minecraft.run(Minecraft.java:123)",
+            "[12:00:03] [Server thread/DEBUG] [net.minecraft.server.MinecraftServer]: Saving chunks for level 'ServerLevel[world]'/minecraft:overworld",
+            "[12:00:04] [Netty Client IO #1/INFO]: Connecting to localhost, 25565"
+    };
+
+    private static final Pattern PATTERN = Pattern.compile("^\\[([^]]*)] \\[(.*)/([A-Z]+)](?: \\[([^]]*)])?: (.*)$");
+
+    private byte[] bytes;
+    private int[] starts;
+    private int[] ends;
+    private final LogLine line = new LogLine();
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+            sb.append(LINES[i % LINES.length]).append('\n');
+        this.bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        this.starts = new int[1000];
+        this.ends = new int[1000];
+        int line = 0;
+        int start = 0;
+        for (int i = 0; i < this.bytes.length; i++)
+        {
+            if (this.bytes[i] != '\n') continue;
+            this.starts[line] = start;
+            this.ends[line++] = i;
+            start = i + 1;
+        }
+    }
+
+    @Benchmark
+    public void parser(Blackhole blackhole)
+    {
+        for (int i = 0; i < this.starts.length; i++)
+        {
+            LogLineParser.parse(this.bytes, this.starts[i], this.ends[i] - this.starts[i], this.line);
+            blackhole.consume(this.line.getLevel());
+        }
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole)
+    {
+        for (int i = 0; i < this.starts.length; i++)
+        {
+            final Matcher matcher = PATTERN.matcher(new String(this.bytes, this.starts[i], this.ends[i] - this.starts[i], StandardCharsets.UTF_8));
+            blackhole.consume(matcher.matches() ? matcher.group(3) : null);
+        }
+    }
+}
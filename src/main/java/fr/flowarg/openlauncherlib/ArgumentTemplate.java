@@ -0,0 +1,100 @@
+package fr.flowarg.openlauncherlib;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * An argument split once into literal parts and <code>${...}</code> placeholders.
+ * The templates with placeholders are cached by argument string, so rendering an argument again only costs one lookup.
+ * The cache keeps the {@link #CACHE_SIZE} most recently used ones: the arguments of the version JSONs, not every
+ * resolved string a long-lived launcher renders.
+ */
+public final class ArgumentTemplate
+{
+    private static final int CACHE_SIZE = 1024;
+    private static final String[] NO_KEYS = new String[0];
+    private static final Map<String, ArgumentTemplate> CACHE = Collections.synchronizedMap(new LinkedHashMap<String, ArgumentTemplate>(256, 0.75F, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ArgumentTemplate> eldest)
+        {
+            return this.size() > CACHE_SIZE;
+        }
+    });
+
+    private final String source;
+    /** Always one more element than {@link #keys}, the literals surround the placeholders. */
+    private final String[] literals;
+    /** The placeholders, with the <code>${</code> and <code>}</code> delimiters (like <code>${game_directory}</code>). */
+    private final String[] keys;
+
+    private ArgumentTemplate(String source, String[] literals, String[] keys)
+    {
+        this.source = source;
+        this.literals = literals;
+        this.keys = keys;
+    }
+
+    /**
+     * Retrieve the compiled form of an argument.
+     * @param source the argument.
+     * @return the cached or newly compiled template.
+     */
+    public static ArgumentTemplate compile(String source)
+    {
+        // Nothing to parse, and not worth a cache entry
+        if(source.indexOf("${") == -1) return new ArgumentTemplate(source, new String[]{source}, NO_KEYS);
+
+        return CACHE.computeIfAbsent(source, ArgumentTemplate::parse);
+    }
+
+    private static ArgumentTemplate parse(String source)
+    {
+        final List<String> literals = new ArrayList<>();
+        final List<String> keys = new ArrayList<>();
+
+        int start = 0;
+        int open;
+        while ((open = source.indexOf("${", start)) != -1)
+        {
+            final int close = source.indexOf('}', open + 2);
+            if(close == -1) break;
+
+            literals.add(source.substring(start, open));
+            keys.add(source.substring(open, close + 1));
+            start = close + 1;
+        }
+        literals.add(source.substring(start));
+
+        return new ArgumentTemplate(source, literals.toArray(new String[0]), keys.toArray(new String[0]));
+    }
+
+    /**
+     * Substitute the placeholders.
+     * @param resolver gives the value of a placeholder, or null to keep it as is.
+     *                 It is called once per placeholder occurrence, memoize it if it is expensive.
+     * @return the rendered argument.
+     */
+    public String render(Function<String, String> resolver)
+    {
+        if(this.keys.length == 0) return this.source;
+
+        final StringBuilder sb = new StringBuilder(this.source.length() + 32);
+        sb.append(this.literals[0]);
+        for (int i = 0; i < this.keys.length; i++)
+        {
+            final String value = resolver.apply(this.keys[i]);
+            sb.append(value != null ? value : this.keys[i]).append(this.literals[i + 1]);
+        }
+        return sb.toString();
+    }
+
+    public String getSource()
+    {
+        return this.source;
+    }
+}
@@ -0,0 +1,166 @@
+package fr.flowarg.openlauncherlib;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Build a classpath from libraries identified by their maven coordinates.
+ *
+ * <p>
+ * Libraries are de-duplicated by <code>group:artifact[:classifier]</code>: when the same artifact is added twice,
+ * the newer version is kept at the position of the first one. The same file is never added twice and missing
+ * files are dropped, the existence checks are all done at once in {@link #build()}, in parallel when there are
+ * enough libraries.
+ * </p>
+ */
+public class ClasspathBuilder
+{
+    /** Under this count, checking the files in parallel costs more than it saves. */
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Add a library.
+     * @param coordinates the maven coordinates (<code>group:artifact:version[:classifier]</code>), can be null.
+     *                    In that case, the library is only de-duplicated by path.
+     * @param path the library file.
+     * @return this builder.
+     */
+    public ClasspathBuilder add(String coordinates, Path path)
+    {
+        this.entries.add(new Entry(coordinates, path.toAbsolutePath()));
+        return this;
+    }
+
+    /**
+     * @return the added libraries, before the existence checks and the de-duplication.
+     */
+    List<Entry> getEntries()
+    {
+        return this.entries;
+    }
+
+    /**
+     * @return the existing library files, de-duplicated and in order.
+     */
+    public List<Path> build()
+    {
+        final boolean[] exists = new boolean[this.entries.size()];
+        IntStream range = IntStream.range(0, exists.length);
+        if(exists.length >= PARALLEL_THRESHOLD) range = range.parallel();
+        range.forEach(i -> exists[i] = Files.exists(this.entries.get(i).path));
+
+        final Map<String, Entry> result = new LinkedHashMap<>();
+        for (int i = 0; i < exists.length; i++)
+        {
+            if(!exists[i]) continue;
+
+            final Entry entry = this.entries.get(i);
+            final Entry previous = result.get(entry.key);
+            if(previous == null || compareVersions(entry.version, previous.version) > 0)
+                result.put(entry.key, entry);
+        }
+
+        final Set<Path> paths = new LinkedHashSet<>(result.size());
+        for (Entry entry : result.values())
+            paths.add(entry.path);
+        return new ArrayList<>(paths);
+    }
+
+    /**
+     * Compare two maven versions, numeric parts are compared as numbers
+     * and a release is newer than its qualified versions (1.0 &gt; 1.0-beta).
+     * @param first the first version.
+     * @param second the second version.
+     * @return a negative number, zero, or a positive number if the first version is older, equal, or newer.
+     */
+    public static int compareVersions(String first, String second)
+    {
+        final String[] a = first.split("[.\\-_+]");
+        final String[] b = second.split("[.\\-_+]");
+
+        for (int i = 0; i < Math.max(a.length, b.length); i++)
+        {
+            if(i >= a.length) return isNumber(b[i]) ? -1 : 1;
+            if(i >= b.length) return isNumber(a[i]) ? 1 : -1;
+
+            final boolean aNumber = isNumber(a[i]);
+            final boolean bNumber = isNumber(b[i]);
+            final int comparison;
+            if(aNumber && bNumber)
+            {
+                final String x = stripLeadingZeros(a[i]);
+                final String y = stripLeadingZeros(b[i]);
+                comparison = x.length() != y.length() ? Integer.compare(x.length(), y.length()) : x.compareTo(y);
+            }
+            else if(aNumber) comparison = 1;
+            else if(bNumber) comparison = -1;
+            else comparison = a[i].compareToIgnoreCase(b[i]);
+
+            if(comparison != 0) return comparison;
+        }
+        return 0;
+    }
+
+    private static boolean isNumber(String str)
+    {
+        if(str.isEmpty()) return false;
+        for (int i = 0; i < str.length(); i++)
+            if(!Character.isDigit(str.charAt(i))) return false;
+        return true;
+    }
+
+    private static String stripLeadingZeros(String str)
+    {
+        int i = 0;
+        while (i < str.length() - 1 && str.charAt(i) == '0') i++;
+        return str.substring(i);
+    }
+
+    static class Entry
+    {
+        private final String coordinates;
+        private final String key;
+        private final String version;
+        private final Path path;
+
+        private Entry(String coordinates, Path path)
+        {
+            this.coordinates = coordinates;
+            this.path = path;
+
+            final String[] parts = coordinates == null ? new String[0] : coordinates.split(":");
+            if(parts.length < 3)
+            {
+                this.key = path.toString();
+                this.version = "";
+                return;
+            }
+
+            // group:artifact:version[:classifier][@extension]
+            final int at = parts[parts.length - 1].indexOf('@');
+            if(at != -1) parts[parts.length - 1] = parts[parts.length - 1].substring(0, at);
+
+            this.key = parts[0] + ':' + parts[1] + (parts.length > 3 ? ':' + parts[3] : "");
+            this.version = parts[2];
+        }
+
+        String getCoordinates()
+        {
+            return this.coordinates;
+        }
+
+        Path getPath()
+        {
+            return this.path;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package fr.flowarg.openlauncherlib;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A resolved launch of {@link NoFramework}: main class, classpath and argument templates.
+ * Only the authentication placeholders are left in the templates, so a stored plan can be reused
+ * as long as the version JSON files it was built from did not change.
+ * The plan keeps all the libraries of the version files, the missing ones are only dropped when
+ * the classpath is read, so a library downloaded (or deleted) since the plan was stored is taken into account.
+ */
+public class LaunchPlan
+{
+    /** Bumped when the stored format changes, older plans are then rebuilt. */
+    private static final int FORMAT = 2;
+
+    private final String mainClass;
+    private final ClasspathBuilder libraries;
+    private final List<String> extraClassPath;
+    private final List<String> vmArgs;
+    private final List<String> args;
+    private String classPath;
+
+    /**
+     * @param mainClass the main class.
+     * @param libraries the libraries, all of them: the missing ones are dropped by {@link #getClassPath()}.
+     * @param extraClassPath the entries added after the libraries, as they are (the client jar).
+     * @param vmArgs the VM argument templates.
+     * @param args the game argument templates.
+     */
+    public LaunchPlan(String mainClass, ClasspathBuilder libraries, List<String> extraClassPath, List<String> vmArgs, List<String> args)
+    {
+        this.mainClass = mainClass;
+        this.libraries = libraries;
+        this.extraClassPath = extraClassPath;
+        this.vmArgs = vmArgs;
+        this.args = args;
+    }
+
+    /**
+     * Compute the key of a plan from the content of the version JSON files and some extra discriminators.
+     * @param files the version JSON files.
+     * @param extra other values the plan depends on (like the libraries directory).
+     * @return an hexadecimal SHA-1 hash.
+     * @throws IOException if a file can't be read.
+     */
+    public static String computeKey(List<Path> files, String... extra) throws IOException
+    {
+        final MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException(e);
+        }
+
+        for (Path file : files)
+        {
+            digest.update(Files.readAllBytes(file));
+            digest.update((byte)0);
+        }
+
+        for (String str : extra)
+        {
+            digest.update(str.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte)0);
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest())
+            sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    /**
+     * Read a stored plan.
+     * @param file the plan file.
+     * @return the plan, or null if the file is missing or was written by another format.
+     * @throws IOException if the file can't be read.
+     */
+    public static LaunchPlan load(Path file) throws IOException
+    {
+        if(Files.notExists(file)) return null;
+
+        final JSONObject object = new JSONObject(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        if(object.optInt("format") != FORMAT) return null;
+
+        final ClasspathBuilder libraries = new ClasspathBuilder();
+        final JSONArray array = object.getJSONArray("libraries");
+        for (int i = 0; i < array.length(); i++)
+        {
+            final JSONObject library = array.getJSONObject(i);
+            libraries.add(library.optString("name", null), Paths.get(library.getString("path")));
+        }
+
+        return new LaunchPlan(
+                object.getString("mainClass"),
+                libraries,
+                toList(object.getJSONArray("extraClassPath")),
+                toList(object.getJSONArray("vmArgs")),
+                toList(object.getJSONArray("args"))
+        );
+    }
+
+    /**
+     * Store this plan, the file is replaced atomically so a concurrent launch never reads a partial plan.
+     * @param file the plan file.
+     * @throws IOException if the file can't be written.
+     */
+    public void save(Path file) throws IOException
+    {
+        final JSONObject object = new JSONObject();
+        object.put("format", FORMAT);
+        object.put("mainClass", this.mainClass);
+        final JSONArray libraries = new JSONArray();
+        for (ClasspathBuilder.Entry entry : this.libraries.getEntries())
+        {
+            final JSONObject library = new JSONObject().put("path", entry.getPath().toString());
+            if(entry.getCoordinates() != null) library.put("name", entry.getCoordinates());
+            libraries.put(library);
+        }
+        object.put("libraries", libraries);
+        object.put("extraClassPath", new JSONArray(this.extraClassPath));
+        object.put("vmArgs", new JSONArray(this.vmArgs));
+        object.put("args", new JSONArray(this.args));
+
+        Files.createDirectories(file.getParent());
+        final Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try
+        {
+            Files.write(tmp, object.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally
+        {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static List<String> toList(JSONArray array)
+    {
+        final List<String> result = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++)
+            result.add(array.getString(i));
+        return result;
+    }
+
+    public String getMainClass()
+    {
+        return this.mainClass;
+    }
+
+    /**
+     * Build the classpath, the first call checks which libraries exist.
+     * @return the existing libraries followed by the extra entries.
+     */
+    public synchronized String getClassPath()
+    {
+        if(this.classPath == null)
+        {
+            final StringBuilder sb = new StringBuilder();
+            for (Path path : this.libraries.build())
+                sb.append(path).append(File.pathSeparator);
+            sb.append(String.join(File.pathSeparator, this.extraClassPath));
+            this.classPath = sb.toString();
+        }
+        return this.classPath;
+    }
+
+    /**
+     * @return the VM arguments, authentication placeholders are not substituted.
+     */
+    public List<String> getVmArgs()
+    {
+        return this.vmArgs;
+    }
+
+    /**
+     * @return the game arguments, authentication placeholders are not substituted.
+     */
+    public List<String> getArgs()
+    {
+        return this.args;
+    }
+}
@@ -0,0 +1,284 @@
+package fr.flowarg.openlauncherlib;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Check the size and the SHA-1 of library files before a launch.
+ *
+ * <p>
+ * Hashing runs on the common {@link ForkJoinPool}, or on a bounded pool owned by the verifier
+ * (shut down by {@link #close()}). Every verified file is recorded in an index file
+ * with its size and last modified time, an unchanged file is then trusted without being hashed again.
+ * </p>
+ */
+public class LibraryVerifier implements Closeable
+{
+    private final Path indexFile;
+    private final ForkJoinPool pool;
+    private final boolean ownPool;
+    private final Map<Path, Record> index = new ConcurrentHashMap<>();
+    private boolean loaded;
+    private volatile boolean dirty;
+
+    /**
+     * Construct a new LibraryVerifier hashing on the common {@link ForkJoinPool}.
+     * @param indexFile the file where the verified libraries are recorded.
+     */
+    public LibraryVerifier(Path indexFile)
+    {
+        this.indexFile = indexFile;
+        this.pool = ForkJoinPool.commonPool();
+        this.ownPool = false;
+    }
+
+    /**
+     * Construct a new LibraryVerifier hashing on its own pool, call {@link #close()} to shut it down.
+     * @param indexFile the file where the verified libraries are recorded.
+     * @param parallelism the maximum number of files hashed at the same time.
+     */
+    public LibraryVerifier(Path indexFile, int parallelism)
+    {
+        this.indexFile = indexFile;
+        this.pool = new ForkJoinPool(parallelism);
+        this.ownPool = true;
+    }
+
+    /**
+     * Verify some artifacts against their expected size and SHA-1.
+     * @param artifacts the artifacts to check.
+     * @return the files that are missing or don't match, empty if everything is fine.
+     * @throws IOException if the index can't be read or written.
+     */
+    public List<Path> verify(Collection<Artifact> artifacts) throws IOException
+    {
+        this.loadIndex();
+
+        final List<Path> invalid = this.run(artifacts, artifact -> !this.check(artifact.path, artifact.sha1, artifact.size))
+                .stream().map(artifact -> artifact.path).collect(Collectors.toList());
+
+        this.saveIndex();
+        return invalid;
+    }
+
+    /**
+     * Verify some files against the size and SHA-1 they had when they were last verified by {@link #verify(Collection)}.
+     * Files that were never verified are ignored.
+     * @param files the files to check.
+     * @return the files that are missing or don't match, empty if everything is fine.
+     * @throws IOException if the index can't be read or written.
+     */
+    public List<Path> verifyKnown(Collection<Path> files) throws IOException
+    {
+        this.loadIndex();
+
+        final List<Path> invalid = this.run(files, file -> {
+            final Record record = this.index.get(file.toAbsolutePath());
+            return record != null && !this.check(file, record.sha1, record.size);
+        });
+
+        this.saveIndex();
+        return invalid;
+    }
+
+    private <T> List<T> run(Collection<T> elements, Predicate<T> invalid) throws IOException
+    {
+        try
+        {
+            return this.pool.submit(() -> elements.parallelStream().filter(invalid).collect(Collectors.toList())).get();
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Library verification interrupted", e);
+        } catch (ExecutionException e)
+        {
+            if(e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException)e.getCause()).getCause();
+            throw new IOException("Library verification failed", e.getCause());
+        }
+    }
+
+    private boolean check(Path file, String sha1, long size)
+    {
+        final Path absolute = file.toAbsolutePath();
+        try
+        {
+            final BasicFileAttributes attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+            if(size >= 0 && attributes.size() != size) return false;
+            if(sha1 == null) return true;
+
+            final long lastModified = attributes.lastModifiedTime().toMillis();
+            final Record record = this.index.get(absolute);
+            if(record != null && record.size == attributes.size() && record.lastModified == lastModified && record.sha1.equalsIgnoreCase(sha1))
+                return true;
+
+            if(!sha1(absolute).equalsIgnoreCase(sha1)) return false;
+
+            this.index.put(absolute, new Record(attributes.size(), lastModified, sha1));
+            this.dirty = true;
+            return true;
+        } catch (NoSuchFileException e)
+        {
+            return false;
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String sha1(Path file) throws IOException
+    {
+        final MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException(e);
+        }
+
+        final byte[] buffer = new byte[65536];
+        try(final InputStream stream = Files.newInputStream(file))
+        {
+            int read;
+            while ((read = stream.read(buffer)) != -1)
+                digest.update(buffer, 0, read);
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest())
+            sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    private synchronized void loadIndex() throws IOException
+    {
+        if(this.loaded) return;
+        this.loaded = true;
+
+        if(Files.notExists(this.indexFile)) return;
+
+        for (String line : Files.readAllLines(this.indexFile, StandardCharsets.UTF_8))
+        {
+            // size \t lastModified \t sha1 \t path
+            final String[] parts = line.split("\t", 4);
+            if(parts.length != 4) continue;
+
+            try
+            {
+                this.index.put(Paths.get(parts[3]), new Record(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]));
+            } catch (RuntimeException ignored) {}
+        }
+    }
+
+    private synchronized void saveIndex() throws IOException
+    {
+        if(!this.dirty) return;
+        this.dirty = false;
+
+        final Path directory = this.indexFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path tmp = Files.createTempFile(directory, this.indexFile.getFileName().toString(), ".tmp");
+        try
+        {
+            try(final BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8))
+            {
+                for (Map.Entry<Path, Record> entry : this.index.entrySet())
+                {
+                    final Record record = entry.getValue();
+                    writer.write(record.size + "\t" + record.lastModified + "\t" + record.sha1 + "\t" + entry.getKey());
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp, this.indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally
+        {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public Path getIndexFile()
+    {
+        return this.indexFile;
+    }
+
+    /**
+     * Shut down the pool of this verifier, if it has its own.
+     */
+    @Override
+    public void close()
+    {
+        if(this.ownPool) this.pool.shutdown();
+    }
+
+    /**
+     * A file with its expected size and SHA-1.
+     */
+    public static final class Artifact
+    {
+        private final Path path;
+        private final String sha1;
+        private final long size;
+
+        /**
+         * @param path the file.
+         * @param sha1 the expected SHA-1, or null to only check the size.
+         * @param size the expected size, or -1 to not check it.
+         */
+        public Artifact(Path path, String sha1, long size)
+        {
+            this.path = path;
+            this.sha1 = sha1;
+            this.size = size;
+        }
+
+        public Path getPath()
+        {
+            return this.path;
+        }
+
+        public String getSha1()
+        {
+            return this.sha1;
+        }
+
+        public long getSize()
+        {
+            return this.size;
+        }
+    }
+
+    private static final class Record
+    {
+        private final long size;
+        private final long lastModified;
+        private final String sha1;
+
+        private Record(long size, long lastModified, String sha1)
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.sha1 = sha1;
+        }
+    }
+}
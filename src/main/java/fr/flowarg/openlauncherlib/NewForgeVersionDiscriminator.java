@@ -1,10 +1,7 @@
 package fr.flowarg.openlauncherlib;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import fr.theshark34.openlauncherlib.configuration.api.json.VersionJSON;
 
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -27,17 +24,12 @@ public class NewForgeVersionDiscriminator
 
     public NewForgeVersionDiscriminator(Path forgeVersionJson) throws Exception
     {
-        final List<String> lines = Files.readAllLines(forgeVersionJson, StandardCharsets.UTF_8);
+        final List<String> array = VersionJSON.read(forgeVersionJson).getGameArguments();
 
-        final StringBuilder sb = new StringBuilder();
-        lines.forEach(sb::append);
-
-        final JSONArray array = new JSONObject(sb.toString()).getJSONObject("arguments").getJSONArray("game");
-
-        this.forgeVersion = array.getString(3);
-        this.mcVersion = array.getString(5);
-        this.forgeGroup = array.getString(7);
-        this.mcpVersion = array.getString(9);
+        this.forgeVersion = array.get(3);
+        this.mcVersion = array.get(5);
+        this.forgeGroup = array.get(7);
+        this.mcpVersion = array.get(9);
     }
 
     public NewForgeVersionDiscriminator(String forgeVersion, String mcVersion, String mcpVersion)
@@ -1,19 +1,27 @@
 package fr.flowarg.openlauncherlib;
 
-import fr.theshark34.openlauncherlib.configuration.api.json.JSONReader;
+import fr.theshark34.openlauncherlib.LaunchException;
+import fr.theshark34.openlauncherlib.configuration.api.json.VersionJSON;
 import fr.theshark34.openlauncherlib.external.ExternalLaunchProfile;
 import fr.theshark34.openlauncherlib.external.ExternalLauncher;
+import fr.theshark34.openlauncherlib.external.SharedArchive;
 import fr.theshark34.openlauncherlib.minecraft.AuthInfos;
 import fr.theshark34.openlauncherlib.minecraft.GameFolder;
+import fr.theshark34.openlauncherlib.util.AsyncUtil;
 import fr.theshark34.openlauncherlib.util.LogUtil;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import fr.theshark34.openlauncherlib.util.metrics.LaunchMetrics;
+import fr.theshark34.openlauncherlib.util.metrics.LaunchPhase;
+import fr.theshark34.openlauncherlib.util.tuning.JvmTuning;
+import fr.theshark34.openlauncherlib.util.tuning.TuningProfile;
 
 import java.io.File;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class NoFramework
@@ -21,6 +29,8 @@ public class NoFramework
     private final Map<String, Function<Parameters, String>> keyValue = new HashMap<>();
     private final Path gameDir;
     private final Path libraries;
+    private final Path assets;
+    private final Path natives;
     private final String clientJar;
     private List<String> additionalVmArgs;
     private List<String> additionalArgs;
@@ -28,11 +38,22 @@ public class NoFramework
     private String customForgeJsonFileName = "";
     private String serverName = "";
     private SafeConsumer<ExternalLauncher> lastCallback;
+    private Path launchPlanCache;
+    private LibraryVerifier libraryVerifier;
+    private ExternalLauncher.ArgumentsMode argumentsMode = ExternalLauncher.ArgumentsMode.INLINE;
+    private boolean sharedArchive = false;
+    private TuningProfile tuningProfile = null;
 
-    private static class Parameters
+    /** Placeholders depending on the user, they are the only ones left in a {@link LaunchPlan}. */
+    private static final Set<String> AUTH_KEYS = new HashSet<>(Arrays.asList(
+            "${auth_player_name}", "${auth_uuid}", "${auth_access_token}", "${clientid}", "${auth_xuid}"));
+
+    static class Parameters
     {
-        private JSONObject vanilla;
-        private JSONObject processing;
+        private VersionJSON vanilla;
+        private VersionJSON processing;
+        /** Placeholders already resolved with these parameters. */
+        private final Map<String, String> resolved = new HashMap<>();
     }
 
     public enum Type {
@@ -87,6 +108,8 @@ public class NoFramework
     {
         this.gameDir = gameDir;
         this.libraries = this.gameDir.resolve(folder.getLibsFolder());
+        this.assets = this.gameDir.resolve(folder.getAssetsFolder());
+        this.natives = this.gameDir.resolve(folder.getNativesFolder());
         this.clientJar = folder.getMainJar();
         this.additionalVmArgs = additionalVmArgs;
         this.additionalArgs = additionalArgs;
@@ -94,21 +117,22 @@ public class NoFramework
         this.keyValue.put("${library_directory}", parameters -> this.libraries.toAbsolutePath().toString());
         this.keyValue.put("${classpath_separator}", parameters -> File.pathSeparator);
         this.keyValue.put("${auth_player_name}", parameters -> infos.getUsername());
-        this.keyValue.put("${version_name}", parameters -> parameters.processing.getString("id"));
+        this.keyValue.put("${version_name}", parameters -> parameters.processing.getId());
         this.keyValue.put("${game_directory}", parameters -> this.gameDir.toAbsolutePath().toString());
-        this.keyValue.put("${assets_root}", parameters -> this.gameDir.resolve(folder.getAssetsFolder()).toAbsolutePath().toString());
-        this.keyValue.put("${assets_index_name}", parameters -> parameters.vanilla.getJSONObject("assetIndex").getString("id"));
+        this.keyValue.put("${assets_root}", parameters -> this.assets.toAbsolutePath().toString());
+        this.keyValue.put("${assets_index_name}", parameters -> parameters.vanilla.getAssetIndexId());
         this.keyValue.put("${auth_uuid}", parameters -> infos.getUuid());
         this.keyValue.put("${auth_access_token}", parameters -> infos.getAccessToken());
         this.keyValue.put("${user_type}", parameters -> "msa");
         this.keyValue.put("${version_type}", parameters -> "release");
         this.keyValue.put("${clientid}", parameters -> infos.getClientId());
         this.keyValue.put("${auth_xuid}", parameters -> infos.getAuthXUID());
-        this.keyValue.put("${natives_directory}", parameters -> this.gameDir.resolve(folder.getNativesFolder()).toAbsolutePath().toString());
+        this.keyValue.put("${natives_directory}", parameters -> this.natives.toAbsolutePath().toString());
     }
 
     /**
      * Launch the game for the specified versions.
+     * The time spent in each step is given to the {@link LaunchMetrics} listeners.
      * @param version Minecraft version (like 1.17.1)
      * @param forgeVersion Forge version (like 37.0.33), do NOT pass a version like 1.17.1-37.0.33!
      * @return the launched process
@@ -116,39 +140,214 @@ public class NoFramework
      */
     public Process launch(String version, String forgeVersion) throws Exception
     {
-        final Logger logger = Logger.getLogger("OpenLauncherLib");
+        final LaunchMetrics metrics = new LaunchMetrics(this.serverName.equals("") ? "Minecraft " + version : this.serverName);
         final Path vanillaJson = this.customVanillaJsonFileName.equals("") ? this.gameDir.resolve(version + ".json") : this.gameDir.resolve(this.customVanillaJsonFileName);
-        final JSONObject vanilla = new JSONReader(logger, vanillaJson).toJSONObject();
         final Path forgeJson = this.customForgeJsonFileName.equals("") ? this.gameDir.resolve(version + "-forge-" + forgeVersion + ".json") : this.gameDir.resolve(this.customForgeJsonFileName);
-        final JSONObject forge = new JSONReader(logger, forgeJson).toJSONObject();
+        final LaunchPlan plan = this.getLaunchPlan(vanillaJson, forgeJson, metrics);
 
         LogUtil.info("no-framework");
 
+        final long start = System.nanoTime();
+        final Parameters parameters = new Parameters();
+        final List<String> vmArgs = this.resolve(plan.getVmArgs(), parameters);
+        vmArgs.addAll(this.additionalVmArgs);
+        final List<String> args = this.resolve(plan.getArgs(), parameters);
+        args.addAll(this.additionalArgs);
+        metrics.end(LaunchPhase.ARGUMENTS, start);
+
         final ExternalLauncher launcher = new ExternalLauncher(new ExternalLaunchProfile(
-                forge.getString("mainClass"),
-                this.getClassPath(vanilla, forge),
-                this.getVmArgs(vanilla, forge),
-                this.getArgs(vanilla, forge),
+                plan.getMainClass(),
+                plan.getClassPath(),
+                vmArgs,
+                args,
                 true,
                 this.serverName.equals("") ? "Minecraft " + version : this.serverName,
                 this.gameDir
         ));
 
+        launcher.getProfile().setMetrics(metrics);
+        launcher.setArgumentsMode(this.argumentsMode);
+        launcher.setArgumentsDirectory(this.gameDir.resolve("args"));
+        if(this.sharedArchive)
+            launcher.setSharedArchive(new SharedArchive(this.gameDir.resolve("cds")));
+        if(this.tuningProfile != null)
+            JvmTuning.apply(launcher.getProfile(), this.tuningProfile);
+
         if(this.lastCallback != null)
             this.lastCallback.accept(launcher);
 
         return launcher.launch();
     }
 
-    private List<String> getVmArgs(JSONObject vanilla, JSONObject forge)
+    /**
+     * Launch the game for the specified versions without blocking the current thread (usually the EDT).
+     * The version files are read and the process is started on the given executor.
+     * @param version Minecraft version (like 1.17.1)
+     * @param forgeVersion Forge version (like 37.0.33), do NOT pass a version like 1.17.1-37.0.33!
+     * @param executor the executor running the launch, {@link AsyncUtil#getDefaultExecutor()} for example.
+     * @return a future completed with the launched process, or with the exception if an error has occurred.
+     * Use {@link AsyncUtil#edt()} to run its callbacks on the Event Dispatch Thread.
+     */
+    public CompletableFuture<Process> launchAsync(String version, String forgeVersion, Executor executor)
+    {
+        return AsyncUtil.supply(() -> this.launch(version, forgeVersion), executor);
+    }
+
+    /**
+     * Retrieve the launch plan for the given version files, from {@link #launchPlanCache} if possible.
+     * @param vanillaJson the vanilla version JSON file.
+     * @param forgeJson the forge version JSON file.
+     * @param metrics the metrics receiving the time spent in each step.
+     * @return the launch plan.
+     * @throws Exception throws an exception if an error has occurred.
+     */
+    private LaunchPlan getLaunchPlan(Path vanillaJson, Path forgeJson, LaunchMetrics metrics) throws Exception
+    {
+        final Logger logger = Logger.getLogger("OpenLauncherLib");
+
+        Path planFile = null;
+        if(this.launchPlanCache != null)
+        {
+            // Every value substituted in the stored plan, the others are read from the version files
+            final String key = LaunchPlan.computeKey(Arrays.asList(vanillaJson, forgeJson),
+                    this.gameDir.toAbsolutePath().toString(), this.libraries.toAbsolutePath().toString(), this.clientJar,
+                    this.assets.toAbsolutePath().toString(), this.natives.toAbsolutePath().toString(), File.pathSeparator);
+            planFile = this.launchPlanCache.resolve(key + ".json");
+
+            LaunchPlan plan = null;
+            final long start = System.nanoTime();
+            try
+            {
+                plan = LaunchPlan.load(planFile);
+            } catch (Exception e)
+            {
+                logger.log(Level.WARNING, "Ignoring unreadable launch plan " + planFile, e);
+            }
+            metrics.end(LaunchPhase.LOAD_PLAN, start);
+
+            if(plan != null)
+            {
+                // The libraries downloaded or deleted since the plan was stored
+                final long classPathStart = System.nanoTime();
+                plan.getClassPath();
+                metrics.end(LaunchPhase.CLASSPATH, classPathStart);
+
+                if(this.libraryVerifier != null)
+                {
+                    final List<Path> files = new ArrayList<>();
+                    for (String entry : plan.getClassPath().split(File.pathSeparator))
+                        files.add(Paths.get(entry));
+                    final long verifyStart = System.nanoTime();
+                    this.checkLibraries(this.libraryVerifier.verifyKnown(files));
+                    metrics.end(LaunchPhase.VERIFY_LIBRARIES, verifyStart);
+                }
+                return plan;
+            }
+        }
+
+        long time = System.nanoTime();
+        final VersionJSON vanilla = VersionJSON.read(vanillaJson);
+        final VersionJSON forge = VersionJSON.read(forgeJson);
+        metrics.end(LaunchPhase.PARSE_JSON, time);
+        final LaunchPlan plan = this.createPlan(vanilla, forge, metrics);
+        time = System.nanoTime();
+        plan.getClassPath();
+        time = metrics.end(LaunchPhase.CLASSPATH, time);
+
+        if(this.libraryVerifier != null)
+        {
+            this.checkLibraries(this.libraryVerifier.verify(this.getArtifacts(plan, vanilla, forge)));
+            metrics.end(LaunchPhase.VERIFY_LIBRARIES, time);
+        }
+
+        if(planFile != null)
+        {
+            try
+            {
+                plan.save(planFile);
+            } catch (Exception e)
+            {
+                logger.log(Level.WARNING, "Can't save the launch plan " + planFile, e);
+            }
+        }
+
+        return plan;
+    }
+
+    /**
+     * Build the launch plan of the given versions, with every placeholder substituted except the {@link #AUTH_KEYS}.
+     * The classpath is only built when it is first read.
+     * @param vanilla the vanilla version.
+     * @param forge the mod loader version.
+     * @param metrics the metrics receiving the time spent building the arguments.
+     * @return the launch plan.
+     */
+    LaunchPlan createPlan(VersionJSON vanilla, VersionJSON forge, LaunchMetrics metrics)
+    {
+        final long start = System.nanoTime();
+        final List<String> vmArgs = this.getVmArgs(vanilla, forge);
+        final List<String> args = this.getArgs(vanilla, forge);
+        metrics.end(LaunchPhase.ARGUMENTS, start);
+
+        return new LaunchPlan(
+                forge.getMainClass(),
+                this.getLibraries(vanilla, forge),
+                Collections.singletonList(this.gameDir.toAbsolutePath().resolve("client.jar").toString()),
+                vmArgs,
+                args
+        );
+    }
+
+    private List<LibraryVerifier.Artifact> getArtifacts(LaunchPlan plan, VersionJSON vanilla, VersionJSON forge)
+    {
+        final Map<String, VersionJSON.Library> libraries = new HashMap<>();
+        for (VersionJSON version : Arrays.asList(vanilla, forge))
+        {
+            for (VersionJSON.Library library : version.getLibraries())
+            {
+                if(library.getPath() != null)
+                    libraries.put(this.libraries.resolve(library.getPath()).toAbsolutePath().toString(), library);
+            }
+        }
+
+        final List<LibraryVerifier.Artifact> artifacts = new ArrayList<>();
+        for (String entry : plan.getClassPath().split(File.pathSeparator))
+        {
+            final VersionJSON.Library library = libraries.get(entry);
+            if(library != null)
+                artifacts.add(new LibraryVerifier.Artifact(Paths.get(entry), library.getSha1(), library.getSize()));
+        }
+        return artifacts;
+    }
+
+    private void checkLibraries(List<Path> invalid) throws LaunchException
+    {
+        if(!invalid.isEmpty())
+            throw new LaunchException("Missing or corrupted libraries: " + invalid);
+    }
+
+    /**
+     * Substitute the {@link #AUTH_KEYS} of the arguments stored in a {@link LaunchPlan}.
+     * @param templates the arguments of the plan.
+     * @param parameters the parameters shared by all the arguments of a launch.
+     * @return the mapped arguments.
+     */
+    List<String> resolve(List<String> templates, Parameters parameters)
+    {
+        final List<String> result = new ArrayList<>(templates.size());
+        for (String template : templates)
+            result.add(this.map(template, parameters, true));
+        return result;
+    }
+
+    private List<String> getVmArgs(VersionJSON vanilla, VersionJSON forge)
     {
         final List<String> result = new ArrayList<>(this.getVmArgsFor(vanilla, vanilla));
         result.addAll(this.getVmArgsFor(forge, vanilla));
-        result.addAll(this.additionalVmArgs);
         return result;
     }
 
-    private List<String> getVmArgsFor(JSONObject object, JSONObject vanilla)
+    private List<String> getVmArgsFor(VersionJSON object, VersionJSON vanilla)
     {
         final Parameters parameters = new Parameters();
         parameters.vanilla = vanilla;
@@ -156,46 +355,36 @@ public class NoFramework
 
         final List<String> sb = new ArrayList<>();
 
-        final JSONArray array = object.getJSONObject("arguments").getJSONArray("jvm");
-        for (Object element : array)
+        for (String arg : object.getJvmArguments())
         {
-            if(element instanceof String)
-            {
-                final String arg = (String)element;
-
-                if(arg.contains("minecraft.launcher") || arg.contains("${classpath}") || arg.equals("-cp")) continue;
+            if(arg.contains("minecraft.launcher") || arg.contains("${classpath}") || arg.equals("-cp")) continue;
 
-                sb.add(this.map(arg, parameters));
-            }
+            sb.add(this.map(arg, parameters, false));
         }
 
         return sb;
     }
 
-    private String getClassPath(JSONObject vanilla, JSONObject forge)
+    private ClasspathBuilder getLibraries(VersionJSON vanilla, VersionJSON forge)
     {
-        final List<String> cp = new ArrayList<>();
-
-        this.appendLibraries(cp, forge);
-        this.appendLibraries(cp, vanilla);
+        final ClasspathBuilder builder = new ClasspathBuilder();
 
-        cp.add(this.gameDir.toAbsolutePath().resolve("client.jar").toString());
+        this.appendLibraries(builder, forge);
+        this.appendLibraries(builder, vanilla);
 
-        return this.toString(cp);
+        return builder;
     }
 
-    private void appendLibraries(List<String> sb, JSONObject object)
+    private void appendLibraries(ClasspathBuilder builder, VersionJSON object)
     {
-        object.getJSONArray("libraries").forEach(jsonElement -> {
-
-            final Path path = this.libraries.resolve(((JSONObject)jsonElement).getJSONObject("downloads").getJSONObject("artifact").getString("path"));
-            final String str = path.toAbsolutePath() + File.pathSeparator;
-            if(!sb.contains(str) && Files.exists(path))
-                sb.add(str);
-        });
+        for (VersionJSON.Library library : object.getLibraries())
+        {
+            if(library.getPath() != null)
+                builder.add(library.getName(), this.libraries.resolve(library.getPath()));
+        }
     }
 
-    private List<String> getArgs(JSONObject vanilla, JSONObject forge)
+    private List<String> getArgs(VersionJSON vanilla, VersionJSON forge)
     {
         final Parameters parameters = new Parameters();
         parameters.vanilla = vanilla;
@@ -203,40 +392,40 @@ public class NoFramework
 
         final List<String> result = new ArrayList<>(getArgs(vanilla, parameters));
         result.addAll(this.getArgs(forge, parameters));
-        result.addAll(this.additionalArgs);
         return result;
     }
 
-    private List<String> getArgs(JSONObject object, Parameters parameters)
+    private List<String> getArgs(VersionJSON object, Parameters parameters)
     {
-        final JSONArray array = object.getJSONObject("arguments").getJSONArray("game");
-
         final List<String> sb = new ArrayList<>();
 
-        for (Object element : array)
-        {
-            if(element instanceof String)
-                sb.add(this.map((String)element, parameters));
-        }
+        for (String element : object.getGameArguments())
+            sb.add(this.map(element, parameters, false));
 
         return sb;
     }
 
-    private String map(String str, Parameters parameters)
+    /**
+     * Substitute the placeholders of an argument.
+     * The argument is compiled once into an {@link ArgumentTemplate} and each placeholder
+     * is only resolved the first time it is met with the given parameters.
+     * @param str the argument.
+     * @param parameters the JSON objects used by the placeholders.
+     * @param auth true to only substitute the {@link #AUTH_KEYS}, false to substitute all the others.
+     * @return the mapped argument.
+     */
+    private String map(String str, Parameters parameters, boolean auth)
     {
         if(str.contains("${version_name}.jar")) return str.replace("${version_name}.jar", this.clientJar);
-        String result = str;
-        for(Map.Entry<String, Function<Parameters, String>> entry : keyValue.entrySet())
-            result = result.replace(entry.getKey(), entry.getValue().apply(parameters));
 
-        return result;
-    }
+        return ArgumentTemplate.compile(str).render(key -> {
+            if(AUTH_KEYS.contains(key) != auth) return null;
 
-    private String toString(List<String> stringList)
-    {
-        final StringBuilder sb = new StringBuilder();
-        stringList.forEach(sb::append);
-        return sb.toString();
+            final Function<Parameters, String> function = this.keyValue.get(key);
+            if(function == null) return null;
+
+            return parameters.resolved.computeIfAbsent(key, k -> function.apply(parameters));
+        });
     }
 
     public List<String> getAdditionalArgs()
@@ -269,6 +458,31 @@ public class NoFramework
         return this.lastCallback;
     }
 
+    public Path getLaunchPlanCache()
+    {
+        return this.launchPlanCache;
+    }
+
+    public LibraryVerifier getLibraryVerifier()
+    {
+        return this.libraryVerifier;
+    }
+
+    public ExternalLauncher.ArgumentsMode getArgumentsMode()
+    {
+        return this.argumentsMode;
+    }
+
+    public boolean isSharedArchive()
+    {
+        return this.sharedArchive;
+    }
+
+    public TuningProfile getTuningProfile()
+    {
+        return this.tuningProfile;
+    }
+
     /**
      * Define some additional args (like window size or server ip/port)
      * @param additionalArgs args to add.
@@ -322,4 +536,56 @@ public class NoFramework
     {
         this.lastCallback = lastCallback;
     }
+
+    /**
+     * Define a directory where resolved launch plans are stored, keyed by the content of the version JSON files.
+     * A launch with an unchanged plan skips the JSON parsing and the classpath resolution. Null (default) disables it.
+     * @param launchPlanCache the cache directory.
+     */
+    public void setLaunchPlanCache(Path launchPlanCache)
+    {
+        this.launchPlanCache = launchPlanCache;
+    }
+
+    /**
+     * Define a verifier checking the size and SHA-1 of the libraries against the version JSON files before the launch.
+     * Null (default) disables the verification.
+     * @param libraryVerifier the library verifier.
+     */
+    public void setLibraryVerifier(LibraryVerifier libraryVerifier)
+    {
+        this.libraryVerifier = libraryVerifier;
+    }
+
+    /**
+     * Define how the classpath and the VM args are given to java. With big modpacks, {@link ExternalLauncher.ArgumentsMode#ARG_FILE}
+     * (Java 9+) or {@link ExternalLauncher.ArgumentsMode#CLASSPATH_JAR} (Java 8) keep the command line short.
+     * The files are written in the <code>args</code> directory of {@link #gameDir} and reused while the arguments don't change.
+     * @param argumentsMode the arguments mode, {@link ExternalLauncher.ArgumentsMode#INLINE} by default.
+     */
+    public void setArgumentsMode(ExternalLauncher.ArgumentsMode argumentsMode)
+    {
+        this.argumentsMode = argumentsMode;
+    }
+
+    /**
+     * Define if an AppCDS archive is used to start the game faster (Java 13+, ignored by older versions).
+     * The first launch dumps the loaded classes in the <code>cds</code> directory of {@link #gameDir}, the next ones map them.
+     * The archive is replaced when the classpath or the Java runtime changes.
+     * @param sharedArchive true to use a shared archive, false by default.
+     */
+    public void setSharedArchive(boolean sharedArchive)
+    {
+        this.sharedArchive = sharedArchive;
+    }
+
+    /**
+     * Define a tuning profile generating the heap and GC arguments from the memory and processors of the computer.
+     * They replace the <code>-Xms</code>, <code>-Xmx</code> and GC arguments of {@link #additionalVmArgs}.
+     * @param tuningProfile the tuning profile, null (default) to only use the additional VM args.
+     */
+    public void setTuningProfile(TuningProfile tuningProfile)
+    {
+        this.tuningProfile = tuningProfile;
+    }
 }
@@ -0,0 +1,320 @@
+package fr.theshark34.openlauncherlib;
+
+import fr.theshark34.openlauncherlib.util.UserCache;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A Java Runtime
+ *
+ * <p>
+ * The version, vendor, architecture and VM flags of a <code>java</code> executable, read by running it once
+ * with <code>-XshowSettings:properties -XX:+PrintFlagsFinal -version</code>. The results of {@link #get(Path)}
+ * are kept while the executable isn't modified, in memory and in the {@link #setCacheFile(Path) cache file} :
+ * a known runtime is read again without starting any process, even after a restart of the launcher.
+ * </p>
+ *
+ * <pre>{@code
+ *     JavaRuntime runtime = JavaRuntime.get(JavaUtil.getJavaPath());
+ *     if (runtime.supports("ArchiveClassesAtExit")) ...
+ * }</pre>
+ */
+public class JavaRuntime
+{
+    /** The time given to an executable to print its properties and flags. */
+    private static final long PROBE_TIMEOUT = 30;
+
+    private static final Map<Path, JavaRuntime> RUNTIMES = new ConcurrentHashMap<>();
+    /** Held while an executable is probed, so it is only started once when several threads need it. */
+    private static final Map<Path, Object> PROBES = new ConcurrentHashMap<>();
+    private static Path cacheFile = UserCache.getDirectory().resolve("runtimes.json");
+    private static boolean cacheLoaded;
+
+    private final Path executable;
+    private final long lastModified;
+    private final String version;
+    private final String vendor;
+    private final String arch;
+    private final Set<String> flags;
+
+    public JavaRuntime(Path executable, long lastModified, String version, String vendor, String arch, Set<String> flags)
+    {
+        this.executable = executable;
+        this.lastModified = lastModified;
+        this.version = version;
+        this.vendor = vendor;
+        this.arch = arch;
+        this.flags = Collections.unmodifiableSet(flags);
+    }
+
+    /**
+     * Return the runtime of the given executable, probed only if it wasn't already since its last modification
+     *
+     * @param executable The java executable
+     * @return The runtime
+     * @throws IOException If the executable can't be run
+     */
+    public static JavaRuntime get(Path executable) throws IOException
+    {
+        loadCache();
+
+        final long lastModified = lastModified(executable);
+        JavaRuntime known = RUNTIMES.get(executable);
+        if (known != null && known.lastModified == lastModified)
+            return known;
+
+        synchronized (PROBES.computeIfAbsent(executable, key -> new Object()))
+        {
+            // Probed by another thread while this one was waiting
+            known = RUNTIMES.get(executable);
+            if (known != null && known.lastModified == lastModified)
+                return known;
+
+            final JavaRuntime runtime = probe(executable);
+            RUNTIMES.put(executable, runtime);
+            saveCache();
+            return runtime;
+        }
+    }
+
+    /**
+     * Set the file where the probed runtimes are kept between two starts of the launcher,
+     * <code>runtimes.json</code> in the {@link UserCache} by default
+     *
+     * @param file The cache file, null to only keep them in memory
+     */
+    public static synchronized void setCacheFile(Path file)
+    {
+        cacheFile = file;
+        cacheLoaded = false;
+    }
+
+    public static synchronized Path getCacheFile()
+    {
+        return cacheFile;
+    }
+
+    private static synchronized void loadCache()
+    {
+        if (cacheLoaded || cacheFile == null)
+            return;
+        cacheLoaded = true;
+
+        if (Files.notExists(cacheFile))
+            return;
+
+        try
+        {
+            final JSONObject object = new JSONObject(new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8));
+            for (String key : object.keySet())
+            {
+                final Path executable = Paths.get(key);
+                RUNTIMES.putIfAbsent(executable, fromJSON(executable, object.getJSONObject(key)));
+            }
+        } catch (IOException | JSONException e)
+        {
+            Logger.getLogger("OpenLauncherLib").log(Level.WARNING, "Ignoring unreadable java runtimes cache " + cacheFile, e);
+        }
+    }
+
+    private static synchronized void saveCache()
+    {
+        if (cacheFile == null)
+            return;
+
+        final JSONObject object = new JSONObject();
+        for (JavaRuntime runtime : RUNTIMES.values())
+            object.put(runtime.executable.toString(), runtime.toJSON());
+
+        try
+        {
+            final Path directory = UserCache.createDirectories(cacheFile.toAbsolutePath().getParent());
+            final Path tmp = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+            try
+            {
+                Files.write(tmp, object.toString().getBytes(StandardCharsets.UTF_8));
+                Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally
+            {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e)
+        {
+            Logger.getLogger("OpenLauncherLib").log(Level.WARNING, "Can't save the java runtimes cache " + cacheFile, e);
+        }
+    }
+
+    private JSONObject toJSON()
+    {
+        return new JSONObject()
+                .put("lastModified", this.lastModified)
+                .put("version", this.version)
+                .put("vendor", this.vendor)
+                .put("arch", this.arch)
+                .put("flags", new JSONArray(this.flags));
+    }
+
+    private static JavaRuntime fromJSON(Path executable, JSONObject object)
+    {
+        final Set<String> flags = new HashSet<>();
+        for (Object flag : object.getJSONArray("flags"))
+            flags.add((String)flag);
+        return new JavaRuntime(executable, object.getLong("lastModified"), object.getString("version"),
+                object.optString("vendor", null), object.optString("arch", null), flags);
+    }
+
+    /**
+     * Run the given executable to read its properties and flags.
+     * The process is killed if it doesn't exit within 30 seconds.
+     *
+     * @param executable The java executable
+     * @return The runtime
+     * @throws IOException If the executable can't be run, doesn't exit in time or its output can't be read
+     */
+    public static JavaRuntime probe(Path executable) throws IOException
+    {
+        final long lastModified = lastModified(executable);
+        // The output goes to a file: reading a pipe could block forever on a hung executable
+        final Path output = Files.createTempFile("java-runtime", ".txt");
+        String version = null;
+        String vendor = null;
+        String arch = null;
+        final Set<String> flags = new HashSet<>();
+        try
+        {
+            final Process process = new ProcessBuilder(executable.toString(), "-XshowSettings:properties", "-XX:+PrintFlagsFinal", "-version")
+                    .redirectErrorStream(true)
+                    .redirectOutput(output.toFile())
+                    .start();
+
+            try
+            {
+                if (!process.waitFor(PROBE_TIMEOUT, TimeUnit.SECONDS))
+                {
+                    process.destroyForcibly();
+                    throw new IOException(executable + " didn't exit within " + PROBE_TIMEOUT + " seconds");
+                }
+            } catch (InterruptedException e)
+            {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while probing " + executable, e);
+            }
+
+            try (final BufferedReader reader = Files.newBufferedReader(output, StandardCharsets.UTF_8))
+            {
+                String line;
+                while ((line = reader.readLine()) != null)
+                {
+                    line = line.trim();
+                    if (line.startsWith("java.version = ")) version = line.substring(15);
+                    else if (line.startsWith("java.vendor = ")) vendor = line.substring(14);
+                    else if (line.startsWith("os.arch = ")) arch = line.substring(10);
+                    else
+                    {
+                        // <type> <name> = <value> {<kind>}
+                        final String[] parts = line.split("\\s+", 4);
+                        if (parts.length >= 3 && parts[2].equals("=") && line.endsWith("}"))
+                            flags.add(parts[1]);
+                    }
+                }
+            }
+        } finally
+        {
+            Files.deleteIfExists(output);
+        }
+
+        if (version == null)
+            throw new IOException(executable + " isn't a java executable");
+        return new JavaRuntime(executable, lastModified, version, vendor, arch, flags);
+    }
+
+    private static long lastModified(Path executable) throws IOException
+    {
+        return Files.exists(executable) ? Files.getLastModifiedTime(executable).toMillis() : 0;
+    }
+
+    /**
+     * Return the major version of a <code>java.version</code>
+     *
+     * @param version The version, like 1.8.0_292, 17.0.2 or 21
+     * @return The major version, like 8, 17 or 21 (0 if it can't be read)
+     */
+    public static int majorVersion(String version)
+    {
+        String major = version.startsWith("1.") ? version.substring(2) : version;
+        int end = 0;
+        while (end < major.length() && Character.isDigit(major.charAt(end))) end++;
+        return end == 0 ? 0 : Integer.parseInt(major.substring(0, end));
+    }
+
+    /**
+     * @param flag The name of a VM flag, like <code>ArchiveClassesAtExit</code>
+     * @return True if the runtime knows the flag
+     */
+    public boolean supports(String flag)
+    {
+        return this.flags.contains(flag);
+    }
+
+    public Path getExecutable()
+    {
+        return this.executable;
+    }
+
+    /**
+     * @return The last modification time of the executable when it was probed
+     */
+    public long getLastModified()
+    {
+        return this.lastModified;
+    }
+
+    public String getVersion()
+    {
+        return this.version;
+    }
+
+    public int getMajorVersion()
+    {
+        return majorVersion(this.version);
+    }
+
+    public String getVendor()
+    {
+        return this.vendor;
+    }
+
+    public String getArch()
+    {
+        return this.arch;
+    }
+
+    public Set<String> getFlags()
+    {
+        return this.flags;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.vendor + " " + this.version + " (" + this.arch + ") " + this.executable;
+    }
+}
@@ -19,11 +19,21 @@
 package fr.theshark34.openlauncherlib;
 
 import fr.flowarg.openlauncherlib.ModifiedByFlow;
+import fr.theshark34.openlauncherlib.minecraft.GameVersion;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The Java Util
@@ -41,6 +51,11 @@ public class JavaUtil
     @ModifiedByFlow
     private static String javaCommand;
 
+    /**
+     * The directories searched for java runtimes, in addition to the usual install locations
+     */
+    private static final List<Path> RUNTIME_DIRECTORIES = new CopyOnWriteArrayList<>();
+
     /**
      * Create an argument for the mac dock name
      *
@@ -71,6 +86,17 @@ public class JavaUtil
         return javaCommand;
     }
 
+    /**
+     * Return the java executable path, without the quotes of {@link #getJavaCommand()}
+     *
+     * @return The java executable
+     */
+    public static Path getJavaPath()
+    {
+        final String command = getJavaCommand();
+        return Paths.get(command.length() > 1 && command.startsWith("\"") && command.endsWith("\"") ? command.substring(1, command.length() - 1) : command);
+    }
+
     /**
      * Set the java executable path
      *
@@ -82,6 +108,198 @@ public class JavaUtil
         javaCommand = javaCommandPath;
     }
 
+    /**
+     * Use the given runtime to launch the programs
+     *
+     * @param runtime The java runtime, found with {@link #findRuntime(int)} for example
+     */
+    public static void useRuntime(JavaRuntime runtime)
+    {
+        final String java = runtime.getExecutable().toString();
+        setJavaCommand(isWindows() ? "\"" + java + "\"" : java);
+    }
+
+    /**
+     * Search java runtimes in the given directory too (for example the directory where the launcher downloads them)
+     *
+     * @param directory A directory containing java runtimes, or a runtime itself
+     */
+    public static void addRuntimeDirectory(Path directory)
+    {
+        RUNTIME_DIRECTORIES.add(directory);
+    }
+
+    /**
+     * Find the java runtimes installed in the usual locations (JAVA_HOME, the JDK install directories, SDKMAN,
+     * the runtimes of the Minecraft launcher...) and in the {@link #addRuntimeDirectory(Path) added directories}.
+     * Each runtime is only started once, and not again after a restart while it is in the {@link JavaRuntime#setCacheFile(Path) cache file}.
+     *
+     * @return The runtimes found
+     */
+    public static List<JavaRuntime> discoverRuntimes()
+    {
+        final Set<Path> executables = new LinkedHashSet<>();
+        final String home = System.getProperty("user.home");
+
+        searchRuntimes(Paths.get(System.getProperty("java.home")), 0, executables);
+        if (System.getenv("JAVA_HOME") != null)
+            searchRuntimes(Paths.get(System.getenv("JAVA_HOME")), 0, executables);
+        for (Path directory : RUNTIME_DIRECTORIES)
+            searchRuntimes(directory, 3, executables);
+
+        final String os = Objects.requireNonNull(System.getProperty("os.name")).toLowerCase();
+        if (isWindows())
+        {
+            for (String programFiles : new String[]{System.getenv("ProgramFiles"), System.getenv("ProgramFiles(x86)")})
+            {
+                if (programFiles == null) continue;
+                for (String vendor : new String[]{"Java", "Eclipse Adoptium", "Eclipse Foundation", "AdoptOpenJDK", "Zulu", "Amazon Corretto", "BellSoft", "Microsoft"})
+                    searchRuntimes(Paths.get(programFiles, vendor), 1, executables);
+            }
+            if (System.getenv("APPDATA") != null)
+                searchRuntimes(Paths.get(System.getenv("APPDATA"), ".minecraft", "runtime"), 3, executables);
+            if (System.getenv("LOCALAPPDATA") != null)
+                searchRuntimes(Paths.get(System.getenv("LOCALAPPDATA"), "Packages", "Microsoft.4297127D64EC6_8wekyb3d8bbwe", "LocalCache", "Local", "runtime"), 3, executables);
+        }
+        else if (os.contains("mac"))
+        {
+            searchRuntimes(Paths.get("/Library/Java/JavaVirtualMachines"), 1, executables);
+            searchRuntimes(Paths.get(home, "Library", "Java", "JavaVirtualMachines"), 1, executables);
+            searchRuntimes(Paths.get(home, "Library", "Application Support", "minecraft", "runtime"), 3, executables);
+        }
+        else
+        {
+            for (String directory : new String[]{"/usr/lib/jvm", "/usr/lib64/jvm", "/usr/java", "/opt/java", "/opt"})
+                searchRuntimes(Paths.get(directory), 1, executables);
+            searchRuntimes(Paths.get(home, ".minecraft", "runtime"), 3, executables);
+        }
+        searchRuntimes(Paths.get(home, ".sdkman", "candidates", "java"), 1, executables);
+        searchRuntimes(Paths.get(home, ".jdks"), 1, executables);
+
+        final List<JavaRuntime> runtimes = new ArrayList<>();
+        for (Path executable : executables)
+        {
+            try
+            {
+                runtimes.add(JavaRuntime.get(executable));
+            } catch (IOException ignored) {}
+        }
+        return runtimes;
+    }
+
+    /**
+     * Search the runtimes in a directory and its sub directories, up to the given depth
+     */
+    private static void searchRuntimes(Path directory, int depth, Set<Path> executables)
+    {
+        if (!Files.isDirectory(directory))
+            return;
+
+        for (Path home : new Path[]{directory, directory.resolve("Contents").resolve("Home")})
+        {
+            final Path java = home.resolve("bin").resolve(isWindows() ? "java.exe" : "java");
+            if (Files.isRegularFile(java))
+            {
+                try
+                {
+                    executables.add(java.toRealPath());
+                    return;
+                } catch (IOException ignored) {}
+            }
+        }
+
+        if (depth == 0)
+            return;
+
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory, Files::isDirectory))
+        {
+            for (Path child : stream)
+                searchRuntimes(child, depth - 1, executables);
+        } catch (IOException ignored) {}
+    }
+
+    /**
+     * Find the best installed runtime for a Java version : the newest update of this version,
+     * else the oldest newer version (except for Java 8, as the old versions don't run on Java 9+).
+     * The runtimes of the same architecture as the launcher are preferred.
+     *
+     * @param majorVersion The Java version, like 8, 17 or 21
+     * @return The runtime, null if none was found
+     */
+    public static JavaRuntime findRuntime(int majorVersion)
+    {
+        final String arch = System.getProperty("os.arch");
+        final Comparator<JavaRuntime> order = Comparator.comparing((JavaRuntime runtime) -> !arch.equals(runtime.getArch()))
+                .thenComparingInt(JavaRuntime::getMajorVersion)
+                .thenComparing((a, b) -> compareVersions(b.getVersion(), a.getVersion()));
+
+        JavaRuntime best = null;
+        for (JavaRuntime runtime : discoverRuntimes())
+        {
+            final int major = runtime.getMajorVersion();
+            if ((major == majorVersion || (majorVersion > 8 && major > majorVersion)) && (best == null || order.compare(runtime, best) < 0))
+                best = runtime;
+        }
+        return best;
+    }
+
+    /**
+     * Find the best installed runtime for a Minecraft version
+     *
+     * @param version The game version
+     * @return The runtime, null if none was found
+     * @see #getRequiredJavaVersion(String)
+     * @see #findRuntime(int)
+     */
+    public static JavaRuntime findRuntime(GameVersion version)
+    {
+        return findRuntime(getRequiredJavaVersion(version.getName()));
+    }
+
+    /**
+     * Return the Java version needed by a Minecraft version (the <code>javaVersion</code> of its version JSON)
+     *
+     * @param minecraftVersion The Minecraft version, like 1.12.2 or 1.20.1
+     * @return 8 until 1.16, 16 for 1.17, 17 until 1.20.4, 21 since 1.20.5 and for the unknown versions
+     */
+    public static int getRequiredJavaVersion(String minecraftVersion)
+    {
+        final String[] parts = minecraftVersion.split("[.\\-]");
+        if (parts.length < 2 || !parts[0].equals("1"))
+            return 21;
+
+        try
+        {
+            final int minor = Integer.parseInt(parts[1]);
+            final int patch = parts.length > 2 && parts[2].matches("\\d+") ? Integer.parseInt(parts[2]) : 0;
+            if (minor <= 16) return 8;
+            if (minor == 17) return 16;
+            if (minor < 20 || (minor == 20 && patch < 5)) return 17;
+            return 21;
+        } catch (NumberFormatException e)
+        {
+            return 21;
+        }
+    }
+
+    private static int compareVersions(String a, String b)
+    {
+        final String[] partsA = a.split("[^0-9]+");
+        final String[] partsB = b.split("[^0-9]+");
+        for (int i = 0; i < Math.max(partsA.length, partsB.length); i++)
+        {
+            final long numberA = i < partsA.length && !partsA[i].isEmpty() ? Long.parseLong(partsA[i]) : 0;
+            final long numberB = i < partsB.length && !partsB[i].isEmpty() ? Long.parseLong(partsB[i]) : 0;
+            if (numberA != numberB) return Long.compare(numberA, numberB);
+        }
+        return 0;
+    }
+
+    private static boolean isWindows()
+    {
+        return Objects.requireNonNull(System.getProperty("os.name")).toLowerCase().contains("win");
+    }
+
     /**
      * Manually set the Java Library Path
      *
@@ -44,9 +44,11 @@ public final class JSONReader
 
     private String load(BufferedReader reader) throws IOException
     {
-        StringBuilder builder = new StringBuilder();
+        final StringBuilder builder = new StringBuilder();
+        final char[] buffer = new char[8192];
+        int read;
 
-        while (reader.ready()) builder.append(reader.readLine());
+        while ((read = reader.read(buffer)) != -1) builder.append(buffer, 0, read);
 
         reader.close();
 
@@ -0,0 +1,404 @@
+package fr.theshark34.openlauncherlib.configuration.api.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A pull-based JSON reader.
+ *
+ * <p>
+ * Unlike {@link JSONReader}, nothing is buffered apart from a fixed char buffer and no tree is built:
+ * the caller walks the document token by token and {@link #skipValue()} the parts it doesn't need
+ * (skipped strings and numbers are never materialized).
+ * </p>
+ */
+public final class JSONStreamReader implements Closeable
+{
+    public enum Token
+    {
+        BEGIN_OBJECT,
+        END_OBJECT,
+        BEGIN_ARRAY,
+        END_ARRAY,
+        NAME,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL,
+        END_DOCUMENT
+    }
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int DANGLING_NAME = 3;
+    private static final int NONEMPTY_OBJECT = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+    /** Number of chars consumed before the current buffer, for error messages. */
+    private long offset;
+
+    private int[] stack = new int[32];
+    private int depth = 1;
+
+    private Token peeked;
+    private final StringBuilder sb = new StringBuilder();
+
+    public JSONStreamReader(Reader reader)
+    {
+        this.reader = reader;
+        this.stack[0] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Return the type of the next token without consuming it.
+     *
+     * @return the next token.
+     * @throws IOException if the document can't be read or is malformed.
+     */
+    public Token peek() throws IOException
+    {
+        if(this.peeked != null) return this.peeked;
+
+        final int scope = this.stack[this.depth - 1];
+        int c;
+        switch (scope)
+        {
+            case EMPTY_ARRAY:
+                this.stack[this.depth - 1] = NONEMPTY_ARRAY;
+                c = this.nextNonWhitespace();
+                if(c == ']') return this.peeked = Token.END_ARRAY;
+                if(c == -1) throw this.syntaxError("Unterminated array");
+                this.pos--;
+                break;
+            case NONEMPTY_ARRAY:
+                c = this.nextNonWhitespace();
+                if(c == ']') return this.peeked = Token.END_ARRAY;
+                if(c != ',') throw this.syntaxError("Expected ',' or ']'");
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = this.nextNonWhitespace();
+                if(c == '}') return this.peeked = Token.END_OBJECT;
+                if(scope == NONEMPTY_OBJECT)
+                {
+                    if(c != ',') throw this.syntaxError("Expected ',' or '}'");
+                    c = this.nextNonWhitespace();
+                }
+                if(c != '"') throw this.syntaxError("Expected a name");
+                this.stack[this.depth - 1] = DANGLING_NAME;
+                return this.peeked = Token.NAME;
+            case DANGLING_NAME:
+                this.stack[this.depth - 1] = NONEMPTY_OBJECT;
+                if(this.nextNonWhitespace() != ':') throw this.syntaxError("Expected ':'");
+                break;
+            case EMPTY_DOCUMENT:
+                this.stack[this.depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            default:
+                if(this.nextNonWhitespace() != -1) throw this.syntaxError("Expected the end of the document");
+                return this.peeked = Token.END_DOCUMENT;
+        }
+
+        c = this.nextNonWhitespace();
+        switch (c)
+        {
+            case '{':
+                return this.peeked = Token.BEGIN_OBJECT;
+            case '[':
+                return this.peeked = Token.BEGIN_ARRAY;
+            case '"':
+                return this.peeked = Token.STRING;
+            case 't':
+            case 'f':
+                this.pos--;
+                return this.peeked = Token.BOOLEAN;
+            case 'n':
+                this.pos--;
+                return this.peeked = Token.NULL;
+            default:
+                if(c == '-' || (c >= '0' && c <= '9'))
+                {
+                    this.pos--;
+                    return this.peeked = Token.NUMBER;
+                }
+                throw this.syntaxError("Unexpected value");
+        }
+    }
+
+    public void beginObject() throws IOException
+    {
+        this.expect(Token.BEGIN_OBJECT);
+        this.push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException
+    {
+        this.expect(Token.END_OBJECT);
+        this.depth--;
+    }
+
+    public void beginArray() throws IOException
+    {
+        this.expect(Token.BEGIN_ARRAY);
+        this.push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException
+    {
+        this.expect(Token.END_ARRAY);
+        this.depth--;
+    }
+
+    /**
+     * @return true if the current object or array has another element.
+     * @throws IOException if the document can't be read or is malformed.
+     */
+    public boolean hasNext() throws IOException
+    {
+        final Token token = this.peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public String nextName() throws IOException
+    {
+        this.expect(Token.NAME);
+        return this.readString(true);
+    }
+
+    /**
+     * Consume a string value. Numbers and booleans are returned as written, null as null.
+     *
+     * @return the value.
+     * @throws IOException if the document can't be read or is malformed.
+     */
+    public String nextString() throws IOException
+    {
+        final Token token = this.peek();
+        this.peeked = null;
+        switch (token)
+        {
+            case STRING:
+                return this.readString(true);
+            case NUMBER:
+            case BOOLEAN:
+                return this.readLiteral(true);
+            case NULL:
+                this.readLiteral(false);
+                return null;
+            default:
+                this.peeked = token;
+                throw this.syntaxError("Expected a string but was " + token);
+        }
+    }
+
+    /**
+     * Consume a number (or a string containing one).
+     *
+     * @return the value.
+     * @throws IOException if the document can't be read or is malformed.
+     */
+    public long nextLong() throws IOException
+    {
+        final String value = this.nextString();
+        try
+        {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e)
+        {
+            throw this.syntaxError("Expected a number but was " + value);
+        }
+    }
+
+    /**
+     * Skip the next value, objects and arrays included.
+     *
+     * @throws IOException if the document can't be read or is malformed.
+     */
+    public void skipValue() throws IOException
+    {
+        int count = 0;
+        do
+        {
+            final Token token = this.peek();
+            switch (token)
+            {
+                case BEGIN_OBJECT:
+                    this.beginObject();
+                    count++;
+                    break;
+                case BEGIN_ARRAY:
+                    this.beginArray();
+                    count++;
+                    break;
+                case END_OBJECT:
+                    this.endObject();
+                    count--;
+                    break;
+                case END_ARRAY:
+                    this.endArray();
+                    count--;
+                    break;
+                case NAME:
+                case STRING:
+                    this.peeked = null;
+                    this.readString(false);
+                    break;
+                case END_DOCUMENT:
+                    return;
+                default:
+                    this.peeked = null;
+                    this.readLiteral(false);
+            }
+        } while (count > 0);
+    }
+
+    private void expect(Token expected) throws IOException
+    {
+        final Token token = this.peek();
+        if(token != expected) throw this.syntaxError("Expected " + expected + " but was " + token);
+        this.peeked = null;
+    }
+
+    private void push(int scope)
+    {
+        if(this.depth == this.stack.length)
+        {
+            final int[] newStack = new int[this.depth * 2];
+            System.arraycopy(this.stack, 0, newStack, 0, this.depth);
+            this.stack = newStack;
+        }
+        this.stack[this.depth++] = scope;
+    }
+
+    /**
+     * Read a string, the opening quote is already consumed.
+     */
+    private String readString(boolean keep) throws IOException
+    {
+        if(keep) this.sb.setLength(0);
+
+        while (true)
+        {
+            int start = this.pos;
+            while (this.pos < this.limit)
+            {
+                final char c = this.buffer[this.pos++];
+                if(c == '"')
+                {
+                    if(!keep) return null;
+                    if(this.sb.length() == 0) return new String(this.buffer, start, this.pos - start - 1);
+                    this.sb.append(this.buffer, start, this.pos - start - 1);
+                    return this.sb.toString();
+                }
+                if(c == '\\')
+                {
+                    if(keep) this.sb.append(this.buffer, start, this.pos - start - 1);
+                    final char escaped = this.readEscape();
+                    if(keep) this.sb.append(escaped);
+                    start = this.pos;
+                }
+            }
+
+            if(keep) this.sb.append(this.buffer, start, this.pos - start);
+            if(!this.fill()) throw this.syntaxError("Unterminated string");
+        }
+    }
+
+    private char readEscape() throws IOException
+    {
+        final int c = this.read();
+        switch (c)
+        {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++)
+                {
+                    final int digit = Character.digit(this.read(), 16);
+                    if(digit == -1) throw this.syntaxError("Malformed unicode escape");
+                    value = (value << 4) | digit;
+                }
+                return (char)value;
+            case '"':
+            case '\\':
+            case '/':
+                return (char)c;
+            default:
+                throw this.syntaxError("Invalid escape sequence");
+        }
+    }
+
+    /**
+     * Read a number, boolean or null up to the next delimiter.
+     */
+    private String readLiteral(boolean keep) throws IOException
+    {
+        if(keep) this.sb.setLength(0);
+
+        while (this.pos < this.limit || this.fill())
+        {
+            final char c = this.buffer[this.pos];
+            if(c == ',' || c == '}' || c == ']' || c == ':' || c == ' ' || c == '\t' || c == '\n' || c == '\r') break;
+            if(keep) this.sb.append(c);
+            this.pos++;
+        }
+
+        return keep ? this.sb.toString() : null;
+    }
+
+    private int read() throws IOException
+    {
+        if(this.pos == this.limit && !this.fill()) throw this.syntaxError("Unexpected end of document");
+        return this.buffer[this.pos++];
+    }
+
+    private int nextNonWhitespace() throws IOException
+    {
+        while (this.pos < this.limit || this.fill())
+        {
+            final char c = this.buffer[this.pos++];
+            if(c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+        }
+        return -1;
+    }
+
+    private boolean fill() throws IOException
+    {
+        this.offset += this.limit;
+        this.pos = 0;
+        this.limit = 0;
+
+        final int read = this.reader.read(this.buffer, 0, this.buffer.length);
+        if(read <= 0) return false;
+
+        this.limit = read;
+        return true;
+    }
+
+    private IOException syntaxError(String message)
+    {
+        return new IOException(message + " at offset " + (this.offset + this.pos));
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.reader.close();
+    }
+}
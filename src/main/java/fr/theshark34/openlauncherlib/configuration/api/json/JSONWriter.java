@@ -50,7 +50,7 @@ public final class JSONWriter implements Closeable
             if (object instanceof Number || object instanceof Boolean) writer.write(space + object);
             else if (object instanceof JSONObject) write((JSONObject)object, true);
             else if (object instanceof JSONArray) write((JSONArray)object);
-            else writer.write(space + "\"" + object.toString() + "\"");
+            else writer.write(space + JSONObject.quote(object.toString()));
 
             if (i < array.length() - 1) writer.write(",");
             writer.newLine();
@@ -75,13 +75,13 @@ public final class JSONWriter implements Closeable
 
         for (String key : jsonObject.keySet())
         {
-            writer.write(space + "\"" + key + "\":");
+            writer.write(space + JSONObject.quote(key) + ":");
             Object object = jsonObject.get(key);
 
             if (object instanceof Number || object instanceof Boolean) writer.write(object.toString());
             else if (object instanceof JSONObject) write((JSONObject)object, false);
             else if (object instanceof JSONArray) write((JSONArray)object);
-            else writer.write("\"" + object.toString() + "\"");
+            else writer.write(JSONObject.quote(object.toString()));
 
             if (i < max - 1) writer.write(",");
             i++;
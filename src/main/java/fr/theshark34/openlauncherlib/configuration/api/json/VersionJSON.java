@@ -0,0 +1,232 @@
+package fr.theshark34.openlauncherlib.configuration.api.json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The fields of a Minecraft version JSON (vanilla, Forge, NeoForge...) needed to launch the game.
+ *
+ * <p>
+ * It is read with a {@link JSONStreamReader}, everything else in the file is skipped without being parsed into objects.
+ * Only the plain string entries of <code>arguments.jvm</code> and <code>arguments.game</code> are kept, the
+ * rule-based ones are ignored.
+ * </p>
+ */
+public final class VersionJSON
+{
+    private String id;
+    private String mainClass;
+    private String assetIndexId;
+    private final List<Library> libraries = new ArrayList<>();
+    private final List<String> jvmArguments = new ArrayList<>();
+    private final List<String> gameArguments = new ArrayList<>();
+
+    private VersionJSON() {}
+
+    public static VersionJSON read(Path file) throws IOException
+    {
+        try(final BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+        {
+            return read(reader);
+        }
+    }
+
+    public static VersionJSON read(Reader reader) throws IOException
+    {
+        final VersionJSON version = new VersionJSON();
+        final JSONStreamReader json = new JSONStreamReader(reader);
+
+        json.beginObject();
+        while (json.hasNext())
+        {
+            switch (json.nextName())
+            {
+                case "id":
+                    version.id = json.nextString();
+                    break;
+                case "mainClass":
+                    version.mainClass = json.nextString();
+                    break;
+                case "assetIndex":
+                    version.assetIndexId = readAssetIndex(json);
+                    break;
+                case "libraries":
+                    readLibraries(json, version.libraries);
+                    break;
+                case "arguments":
+                    readArguments(json, version);
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+
+        return version;
+    }
+
+    private static String readAssetIndex(JSONStreamReader json) throws IOException
+    {
+        String id = null;
+        json.beginObject();
+        while (json.hasNext())
+        {
+            if(json.nextName().equals("id")) id = json.nextString();
+            else json.skipValue();
+        }
+        json.endObject();
+        return id;
+    }
+
+    private static void readLibraries(JSONStreamReader json, List<Library> libraries) throws IOException
+    {
+        json.beginArray();
+        while (json.hasNext())
+        {
+            final Library library = new Library();
+            json.beginObject();
+            while (json.hasNext())
+            {
+                final String name = json.nextName();
+                if(name.equals("name")) library.name = json.nextString();
+                else if(name.equals("downloads")) readDownloads(json, library);
+                else json.skipValue();
+            }
+            json.endObject();
+            libraries.add(library);
+        }
+        json.endArray();
+    }
+
+    private static void readDownloads(JSONStreamReader json, Library library) throws IOException
+    {
+        json.beginObject();
+        while (json.hasNext())
+        {
+            if(!json.nextName().equals("artifact"))
+            {
+                json.skipValue();
+                continue;
+            }
+
+            json.beginObject();
+            while (json.hasNext())
+            {
+                switch (json.nextName())
+                {
+                    case "path":
+                        library.path = json.nextString();
+                        break;
+                    case "sha1":
+                        library.sha1 = json.nextString();
+                        break;
+                    case "size":
+                        library.size = json.nextLong();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        json.endObject();
+    }
+
+    private static void readArguments(JSONStreamReader json, VersionJSON version) throws IOException
+    {
+        json.beginObject();
+        while (json.hasNext())
+        {
+            final String name = json.nextName();
+            if(name.equals("jvm")) readStringArguments(json, version.jvmArguments);
+            else if(name.equals("game")) readStringArguments(json, version.gameArguments);
+            else json.skipValue();
+        }
+        json.endObject();
+    }
+
+    private static void readStringArguments(JSONStreamReader json, List<String> arguments) throws IOException
+    {
+        json.beginArray();
+        while (json.hasNext())
+        {
+            if(json.peek() == JSONStreamReader.Token.STRING) arguments.add(json.nextString());
+            else json.skipValue();
+        }
+        json.endArray();
+    }
+
+    public String getId()
+    {
+        return this.id;
+    }
+
+    public String getMainClass()
+    {
+        return this.mainClass;
+    }
+
+    public String getAssetIndexId()
+    {
+        return this.assetIndexId;
+    }
+
+    public List<Library> getLibraries()
+    {
+        return Collections.unmodifiableList(this.libraries);
+    }
+
+    public List<String> getJvmArguments()
+    {
+        return Collections.unmodifiableList(this.jvmArguments);
+    }
+
+    public List<String> getGameArguments()
+    {
+        return Collections.unmodifiableList(this.gameArguments);
+    }
+
+    /**
+     * An entry of <code>libraries</code>, the artifact fields are null (size -1) if there is no <code>downloads.artifact</code>.
+     */
+    public static final class Library
+    {
+        private String name;
+        private String path;
+        private String sha1;
+        private long size = -1;
+
+        /**
+         * @return the maven coordinates (like <code>com.google.guava:guava:31.1-jre</code>).
+         */
+        public String getName()
+        {
+            return this.name;
+        }
+
+        /**
+         * @return the path of the artifact, relative to the libraries directory.
+         */
+        public String getPath()
+        {
+            return this.path;
+        }
+
+        public String getSha1()
+        {
+            return this.sha1;
+        }
+
+        public long getSize()
+        {
+            return this.size;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import fr.theshark34.openlauncherlib.configuration.api.Configuration;
 import fr.theshark34.openlauncherlib.configuration.api.ConfigurationManager;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.logging.Logger;
 
 /**
@@ -29,9 +30,24 @@ import java.util.logging.Logger;
  */
 public class DefaultConfigurationManager extends ConfigurationManager
 {
+    /**
+     * If the configurations save their changes to a journal.
+     */
+    private final boolean journaled;
+
     public DefaultConfigurationManager(Logger logger)
+    {
+        this(logger, false);
+    }
+
+    /**
+     * @param logger    The logger.
+     * @param journaled If True, the configurations are {@link JournaledConfiguration}s : a saved change only appends a line to a journal.
+     */
+    public DefaultConfigurationManager(Logger logger, boolean journaled)
     {
         super(logger);
+        this.journaled = journaled;
     }
 
     /**
@@ -44,6 +60,6 @@ public class DefaultConfigurationManager extends ConfigurationManager
     @Override
     public Configuration getConfiguration(String path) throws IOException
     {
-        return new SimpleConfiguration(getLogger(), path);
+        return journaled ? new JournaledConfiguration(getLogger(), Paths.get(path)) : new SimpleConfiguration(getLogger(), path);
     }
 }
@@ -0,0 +1,273 @@
+package fr.theshark34.openlauncherlib.configuration.core;
+
+import fr.theshark34.openlauncherlib.configuration.api.json.JSONWriter;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Configuration saving its changes to a journal
+ *
+ * <p>
+ * A saved {@link #set(Object, boolean, String...)} doesn't rewrite the whole file : it appends one line to
+ * <code>&lt;file&gt;.journal</code> (<code>{"n":["video","fov"],"v":90}</code>, without <code>v</code> for a removal).
+ * The journal is compacted into the file in the background, <code>compactDelay</code> milliseconds after the
+ * first change or as soon as it has <code>maxRecords</code> lines, and by {@link #save()}. The file keeps the format
+ * of {@link SimpleConfiguration} and is replaced atomically; when the configuration is read, the journal left by
+ * an interrupted run is replayed over it.
+ * </p>
+ *
+ * @see DefaultConfigurationManager#DefaultConfigurationManager(Logger, boolean)
+ */
+public class JournaledConfiguration extends SimpleConfiguration implements Closeable
+{
+    private static volatile ScheduledExecutorService scheduler;
+
+    private final Logger logger;
+    private final Path file;
+    private final Path journal;
+
+    private long compactDelay = 5000;
+    private int maxRecords = 1000;
+
+    private BufferedWriter journalWriter;
+    private int records;
+    private ScheduledFuture<?> pendingCompaction;
+
+    /**
+     * Read the configuration, and its journal if there is one
+     *
+     * @param logger The logger
+     * @param file   The configuration file
+     * @throws IOException If the file exists and can't be read
+     */
+    public JournaledConfiguration(Logger logger, Path file) throws IOException
+    {
+        super(logger, file);
+        this.logger = logger;
+        this.file = file;
+        this.journal = file.resolveSibling(file.getFileName() + ".journal");
+
+        if (Files.exists(this.journal))
+        {
+            this.replay();
+            this.scheduleCompaction(0);
+        }
+    }
+
+    private void replay() throws IOException
+    {
+        try (final BufferedReader reader = Files.newBufferedReader(this.journal, StandardCharsets.UTF_8))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (line.isEmpty()) continue;
+
+                final JSONObject record;
+                final String[] nodes;
+                try
+                {
+                    record = new JSONObject(line);
+                    final JSONArray array = record.getJSONArray("n");
+                    nodes = new String[array.length()];
+                    for (int i = 0; i < nodes.length; i++)
+                        nodes[i] = array.getString(i);
+                } catch (JSONException e)
+                {
+                    // The last line of an interrupted write, or a record without its nodes
+                    this.logger.log(Level.WARNING, "Ignoring a broken record of " + this.journal);
+                    continue;
+                }
+
+                super.set(record.opt("v"), false, nodes);
+                this.records++;
+            }
+        }
+    }
+
+    /**
+     * Set a value, appended to the journal if <code>save</code> is true
+     *
+     * @param value The new value, null to remove it
+     * @param save  If True then append the change to the journal.
+     * @param nodes The keys in the configuration.
+     */
+    @Override
+    public synchronized void set(Object value, boolean save, String... nodes)
+    {
+        super.set(value, false, nodes);
+        if (!save)
+            return;
+
+        try
+        {
+            if (this.journalWriter == null)
+                this.journalWriter = Files.newBufferedWriter(this.journal, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+            final JSONObject record = new JSONObject().put("n", new JSONArray(nodes));
+            if (value != null)
+                record.put("v", value);
+            this.journalWriter.write(record.toString());
+            this.journalWriter.newLine();
+            this.journalWriter.flush();
+        } catch (IOException e)
+        {
+            this.logger.log(Level.SEVERE, e.getMessage(), e);
+            return;
+        }
+
+        this.scheduleCompaction(++this.records >= this.maxRecords ? 0 : this.compactDelay);
+    }
+
+    private synchronized void scheduleCompaction(long delay)
+    {
+        if (this.pendingCompaction != null)
+        {
+            if (delay > 0 || this.pendingCompaction.getDelay(TimeUnit.MILLISECONDS) <= 0)
+                return;
+            this.pendingCompaction.cancel(false);
+        }
+
+        this.pendingCompaction = getScheduler().schedule(() -> {
+            try
+            {
+                this.save();
+            } catch (IOException e)
+            {
+                this.logger.log(Level.SEVERE, e.getMessage(), e);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Compact the configuration : write the whole file, then empty the journal
+     *
+     * @throws IOException If the file can't be written
+     */
+    @Override
+    public synchronized void save() throws IOException
+    {
+        if (this.pendingCompaction != null)
+            this.pendingCompaction.cancel(false);
+        this.pendingCompaction = null;
+
+        final StringWriter content = new StringWriter();
+        try (final JSONWriter writer = new JSONWriter(new BufferedWriter(content)))
+        {
+            writer.write(this.get(new JSONObject()));
+            writer.flush();
+        }
+
+        final Path directory = this.file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path tmp = Files.createTempFile(directory, this.file.getFileName().toString(), ".tmp");
+        try
+        {
+            Files.write(tmp, content.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally
+        {
+            Files.deleteIfExists(tmp);
+        }
+
+        // Replaying the journal over the new file would give the same values, so a crash here loses nothing
+        if (this.journalWriter != null)
+            this.journalWriter.close();
+        this.journalWriter = null;
+        Files.deleteIfExists(this.journal);
+        this.records = 0;
+    }
+
+    /**
+     * Compact the pending changes and close the journal
+     *
+     * @throws IOException If the file can't be written
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if (this.records > 0 || this.pendingCompaction != null)
+            this.save();
+    }
+
+    private static ScheduledExecutorService getScheduler()
+    {
+        if (scheduler == null)
+        {
+            synchronized (JournaledConfiguration.class)
+            {
+                if (scheduler == null)
+                {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        final Thread thread = new Thread(runnable, "OpenLauncherLib-Configuration");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    public Path getFile()
+    {
+        return this.file;
+    }
+
+    public Path getJournal()
+    {
+        return this.journal;
+    }
+
+    /**
+     * @return The number of records in the journal
+     */
+    public synchronized int getRecords()
+    {
+        return this.records;
+    }
+
+    public synchronized long getCompactDelay()
+    {
+        return this.compactDelay;
+    }
+
+    /**
+     * @param compactDelay The time in milliseconds between the first change and the compaction
+     */
+    public synchronized void setCompactDelay(long compactDelay)
+    {
+        this.compactDelay = compactDelay;
+    }
+
+    public synchronized int getMaxRecords()
+    {
+        return this.maxRecords;
+    }
+
+    /**
+     * @param maxRecords The number of records from which the journal is compacted immediately
+     */
+    public synchronized void setMaxRecords(int maxRecords)
+    {
+        this.maxRecords = maxRecords;
+    }
+}
@@ -58,7 +58,7 @@ public class SimpleConfiguration implements Configuration
         this(logger, Paths.get(path));
     }
 
-    private SimpleConfiguration(Logger logger, Path file) throws IOException
+    SimpleConfiguration(Logger logger, Path file) throws IOException
     {
         this.file = file;
         this.logger = logger;
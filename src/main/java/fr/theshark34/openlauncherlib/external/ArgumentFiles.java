@@ -0,0 +1,211 @@
+package fr.theshark34.openlauncherlib.external;
+
+import fr.theshark34.openlauncherlib.util.UserCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * The Argument Files
+ *
+ * <p>
+ * Write the long parts of a command line to files, so the command stays short :
+ * a Java <code>@argfile</code> (read by Java 9 and later), or a jar containing only
+ * a manifest whose <code>Class-Path</code> lists the classpath (for Java 8).
+ * The files are named after the hash of their content. They are written again on each launch, through a temporary
+ * file and an atomic move : a file found in the directory is never trusted, it could have been planted by another user.
+ * The files not written for {@link #MAX_AGE} are deleted.
+ * </p>
+ *
+ * @see ExternalLauncher.ArgumentsMode
+ */
+public class ArgumentFiles
+{
+    /**
+     * The time after which an argument file that wasn't written again is deleted, in milliseconds
+     */
+    public static final long MAX_AGE = TimeUnit.DAYS.toMillis(7);
+
+    /**
+     * Write the given arguments to an argument file
+     *
+     * @param directory The directory where the argument files are stored
+     * @param arguments The arguments to write
+     * @return The argument file, to pass to java as <code>@file</code>
+     * @throws IOException If the file can't be written
+     */
+    public static Path writeArgFile(Path directory, List<String> arguments) throws IOException
+    {
+        final StringBuilder content = new StringBuilder();
+        for (String argument : arguments)
+            content.append(quote(argument)).append('\n');
+
+        // The java launcher reads the file with the platform encoding
+        final byte[] bytes = content.toString().getBytes(nativeCharset());
+        final Path file = directory.resolve("args-" + sha1(bytes) + ".txt");
+        write(file, bytes);
+        return file;
+    }
+
+    /**
+     * Write a jar which manifest references the given classpath
+     *
+     * @param directory The directory where the classpath jars are stored
+     * @param classPath The classpath entries
+     * @return The jar to use as the only classpath entry
+     * @throws IOException If the jar can't be written
+     */
+    public static Path writeClasspathJar(Path directory, List<Path> classPath) throws IOException
+    {
+        final StringBuilder entries = new StringBuilder();
+        for (Path entry : classPath)
+        {
+            if (entries.length() > 0) entries.append(' ');
+            // Directories must end with a slash to be seen as directories
+            final String uri = entry.toAbsolutePath().toUri().toString();
+            entries.append(uri.endsWith("/") || !Files.isDirectory(entry) ? uri : uri + "/");
+        }
+
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, entries.toString());
+
+        final Path file = directory.resolve("classpath-" + sha1(entries.toString().getBytes(StandardCharsets.UTF_8)) + ".jar");
+        prepare(directory);
+        final Path tmp = Files.createTempFile(directory, "classpath", ".tmp");
+        try
+        {
+            try (final OutputStream out = Files.newOutputStream(tmp); final JarOutputStream jar = new JarOutputStream(out, manifest))
+            {
+                jar.flush();
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally
+        {
+            Files.deleteIfExists(tmp);
+        }
+        return file;
+    }
+
+    /**
+     * Split a classpath string made by {@link ClasspathConstructor#make()}
+     *
+     * @param classPath The classpath string
+     * @return The classpath entries
+     */
+    public static List<Path> split(String classPath)
+    {
+        final List<Path> paths = new ArrayList<>();
+        for (String part : classPath.split(File.pathSeparator))
+            if (!part.isEmpty())
+                paths.add(Paths.get(part));
+        return paths;
+    }
+
+    /**
+     * Quote an argument for an argument file : inside quotes, backslashes are escapes
+     */
+    private static String quote(String argument)
+    {
+        final StringBuilder sb = new StringBuilder(argument.length() + 2).append('"');
+        for (int i = 0; i < argument.length(); i++)
+        {
+            final char c = argument.charAt(i);
+            switch (c)
+            {
+                case '"':
+                case '\\':
+                    sb.append('\\').append(c);
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static Charset nativeCharset()
+    {
+        try
+        {
+            final String encoding = System.getProperty("sun.jnu.encoding");
+            if (encoding != null)
+                return Charset.forName(encoding);
+        } catch (IllegalArgumentException ignored) {}
+        return Charset.defaultCharset();
+    }
+
+    private static void write(Path file, byte[] bytes) throws IOException
+    {
+        prepare(file.getParent());
+        final Path tmp = Files.createTempFile(file.getParent(), "args", ".tmp");
+        try
+        {
+            Files.write(tmp, bytes);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally
+        {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Create the directory, and delete the argument files not written for {@link #MAX_AGE}
+     */
+    private static void prepare(Path directory) throws IOException
+    {
+        UserCache.createDirectories(directory);
+
+        final long expired = System.currentTimeMillis() - MAX_AGE;
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "{args-*.txt,classpath-*.jar}"))
+        {
+            for (Path file : stream)
+            {
+                try
+                {
+                    if (Files.getLastModifiedTime(file).toMillis() < expired)
+                        Files.delete(file);
+                } catch (IOException ignored) {} // Still used by a running game on Windows
+            }
+        }
+    }
+
+    static String sha1(byte[] bytes) throws IOException
+    {
+        try
+        {
+            final StringBuilder sb = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(bytes))
+                sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException(e);
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package fr.theshark34.openlauncherlib.external;
 
 import fr.flowarg.openlauncherlib.ModifiedByFlow;
+import fr.theshark34.openlauncherlib.util.metrics.LaunchMetrics;
 
 import java.io.File;
 import java.nio.file.Path;
@@ -75,6 +76,11 @@ public class ExternalLaunchProfile
      */
     private Path directory;
 
+    /**
+     * The timings of the launch (optional)
+     */
+    private LaunchMetrics metrics;
+
     /**
      * Basic launch profile
      *
@@ -281,4 +287,24 @@ public class ExternalLaunchProfile
     {
         this.directory = directory;
     }
+
+    /**
+     * Return the timings of the launch, completed by the {@link ExternalLauncher} (can be null)
+     *
+     * @return The launch metrics
+     */
+    public LaunchMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Set the timings of the launch, the {@link ExternalLauncher} creates them if they are null
+     *
+     * @param metrics The launch metrics
+     */
+    public void setMetrics(LaunchMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
 }
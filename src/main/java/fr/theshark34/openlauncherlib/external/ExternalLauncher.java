@@ -19,14 +19,25 @@
 package fr.theshark34.openlauncherlib.external;
 
 import fr.flowarg.openlauncherlib.ModifiedByFlow;
+import fr.theshark34.openlauncherlib.JavaRuntime;
 import fr.theshark34.openlauncherlib.JavaUtil;
 import fr.theshark34.openlauncherlib.LaunchException;
+import fr.theshark34.openlauncherlib.util.AsyncUtil;
 import fr.theshark34.openlauncherlib.util.LogUtil;
 import fr.theshark34.openlauncherlib.util.ProcessLogManager;
+import fr.theshark34.openlauncherlib.util.UserCache;
+import fr.theshark34.openlauncherlib.util.log.AsyncLogSink;
+import fr.theshark34.openlauncherlib.util.log.LogLevelCounter;
+import fr.theshark34.openlauncherlib.util.log.LogSink;
+import fr.theshark34.openlauncherlib.util.metrics.LaunchMetrics;
+import fr.theshark34.openlauncherlib.util.metrics.LaunchPhase;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * The External Launcher
@@ -66,6 +77,72 @@ public class ExternalLauncher
     @ModifiedByFlow
     private List<String> vmArgs = new ArrayList<>();
 
+    /**
+     * How the classpath and the vm arguments are given to java
+     */
+    private ArgumentsMode argumentsMode = ArgumentsMode.INLINE;
+
+    /**
+     * The directory where the argument files are written, when they are used
+     */
+    private Path argumentsDirectory;
+
+    /**
+     * The sinks receiving the process output, when the logs are enabled
+     */
+    private final List<LogSink> logSinks = new ArrayList<>();
+
+    /**
+     * If the log sinks are closed when the output of the process ends
+     */
+    private boolean closeLogSinks = true;
+
+    /**
+     * The log sinks wrapped once, when they are given to several processes
+     */
+    private List<AsyncLogSink> sharedLogSinks;
+
+    /**
+     * The log manager of the last launched process
+     */
+    private volatile ProcessLogManager logManager;
+
+    /**
+     * The counter of the log lines by level, when the logs are enabled (optional)
+     */
+    private LogLevelCounter logLevelCounter;
+
+    /**
+     * The AppCDS archive of the launched program (optional)
+     */
+    private SharedArchive sharedArchive;
+
+    /**
+     * How the classpath and the vm arguments are given to java
+     *
+     * @see ArgumentFiles
+     */
+    public enum ArgumentsMode
+    {
+        /**
+         * On the command line
+         */
+        INLINE,
+        /**
+         * In an <code>@argfile</code>, the launched java must be Java 9 or later
+         */
+        ARG_FILE,
+        /**
+         * The classpath in the manifest of an empty jar, the vm arguments on the command line (works with Java 8)
+         */
+        CLASSPATH_JAR,
+        /**
+         * {@link #ARG_FILE} if the launched java is Java 9 or later, {@link #CLASSPATH_JAR} otherwise
+         * (read with {@link JavaRuntime}, {@link #INLINE} if it can't be)
+         */
+        AUTO
+    }
+
     /**
      * The External Launcher
      *
@@ -111,31 +188,122 @@ public class ExternalLauncher
 
     /**
      * Launch the program !
+     * The time spent writing the argument files and starting the process is added to the
+     * {@link ExternalLaunchProfile#getMetrics() profile metrics} (created if there are none).
      *
      * @return The created (and launched) process
      * @throws LaunchException If it failed something
      */
     @ModifiedByFlow
     public Process launch() throws LaunchException
+    {
+        return this.launch(null);
+    }
+
+    /**
+     * Launch the program, and call a listener when it prints something for the first time
+     *
+     * @param firstOutputListener The listener, called from the thread reading the logs (only if the logs are enabled)
+     * @return The created (and launched) process
+     * @throws LaunchException If it failed something
+     * @see LaunchOrchestrator
+     */
+    Process launch(Runnable firstOutputListener) throws LaunchException
     {
         LogUtil.info("hi-ext");
 
-        final ProcessBuilder builder = new ProcessBuilder();
-        vmArgs.add(JavaUtil.getJavaCommand());
+        final List<String> command = this.prepare();
+        vmArgs.clear();
+        vmArgs.addAll(command);
+        return this.start(vmArgs, firstOutputListener);
+    }
+
+    /**
+     * Build the command launching the program (writing the argument files if they are used),
+     * the vm arguments of this launcher are left as they are
+     *
+     * @return The command, starting with the vm arguments of this launcher
+     * @throws LaunchException If the argument files can't be written
+     * @see LaunchSupervisor
+     */
+    List<String> prepare() throws LaunchException
+    {
+        final LaunchMetrics metrics = this.getMetrics();
+        final List<String> command = new ArrayList<>(vmArgs);
+        command.add(JavaUtil.getJavaCommand());
 
         if (profile.getMacDockName() != null && System.getProperty("os.name").toLowerCase().contains("mac"))
-            vmArgs.add(JavaUtil.macDockName(profile.getMacDockName()));
+            command.add(JavaUtil.macDockName(profile.getMacDockName()));
+        final List<String> javaArgs = new ArrayList<>();
         if (profile.getVmArgs() != null)
-            vmArgs.addAll(profile.getVmArgs());
+            javaArgs.addAll(profile.getVmArgs());
+
+        if (this.sharedArchive != null)
+        {
+            try
+            {
+                javaArgs.addAll(this.sharedArchive.getVmArgs(JavaUtil.getJavaPath(), profile.getClassPath()));
+            } catch (IOException e)
+            {
+                LogUtil.err("cds-err", e.toString());
+            }
+        }
 
-        vmArgs.add("-cp");
-        vmArgs.add(profile.getClassPath());
+        javaArgs.add("-cp");
+        javaArgs.add(profile.getClassPath());
 
-        vmArgs.add(profile.getMainClass());
+        ArgumentsMode argumentsMode = this.argumentsMode;
+        if (argumentsMode == ArgumentsMode.AUTO)
+        {
+            try
+            {
+                argumentsMode = JavaRuntime.get(JavaUtil.getJavaPath()).getMajorVersion() >= 9 ? ArgumentsMode.ARG_FILE : ArgumentsMode.CLASSPATH_JAR;
+            } catch (IOException e)
+            {
+                argumentsMode = ArgumentsMode.INLINE;
+            }
+        }
+
+        try
+        {
+            final long start = System.nanoTime();
+            if (argumentsMode == ArgumentsMode.ARG_FILE)
+            {
+                command.add("@" + ArgumentFiles.writeArgFile(this.getArgumentsDirectory(), javaArgs).toAbsolutePath());
+                javaArgs.clear();
+            }
+            else if (argumentsMode == ArgumentsMode.CLASSPATH_JAR)
+                javaArgs.set(javaArgs.size() - 1, ArgumentFiles.writeClasspathJar(this.getArgumentsDirectory(), ArgumentFiles.split(profile.getClassPath())).toAbsolutePath().toString());
+
+            if (argumentsMode != ArgumentsMode.INLINE)
+                metrics.end(LaunchPhase.ARGUMENT_FILES, start);
+        } catch (IOException e)
+        {
+            throw new LaunchException("Cannot write the argument files !", e);
+        }
+
+        command.addAll(javaArgs);
+
+        command.add(profile.getMainClass());
 
         if (profile.getArgs() != null)
-            vmArgs.addAll(profile.getArgs());
+            command.addAll(profile.getArgs());
+
+        return command;
+    }
 
+    /**
+     * Start the program with a command built by {@link #prepare()}, and pump its logs if they are enabled
+     *
+     * @param command             The command
+     * @param firstOutputListener Called when the program prints something for the first time, can be null
+     * @return The created (and launched) process
+     * @throws LaunchException If the process can't be started
+     */
+    Process start(List<String> command, Runnable firstOutputListener) throws LaunchException
+    {
+        final LaunchMetrics metrics = this.getMetrics();
+        final ProcessBuilder builder = new ProcessBuilder();
         if (profile.getDirectory() != null)
             builder.directory(profile.getDirectory().toFile());
 
@@ -145,23 +313,39 @@ public class ExternalLauncher
         if (launchingEvent != null)
             launchingEvent.onLaunching(builder);
 
-        builder.command(vmArgs);
+        builder.command(command);
 
         final StringBuilder entireCommand = new StringBuilder();
-        for (String command : vmArgs)
-            entireCommand.append(command).append(" ");
+        for (String argument : command)
+            entireCommand.append(argument).append(" ");
 
         LogUtil.info("ent", ":", entireCommand.toString());
         LogUtil.info("start", profile.getMainClass());
 
         try
         {
+            final long start = System.nanoTime();
             final Process p = builder.start();
+            final long started = metrics.end(LaunchPhase.PROCESS_START, start);
 
             if (logsEnabled)
             {
                 ProcessLogManager manager = new ProcessLogManager(p.getInputStream());
+                if (closeLogSinks)
+                {
+                    for (LogSink sink : logSinks)
+                        manager.addSink(sink);
+                }
+                else
+                {
+                    for (AsyncLogSink sink : this.getSharedLogSinks())
+                        manager.addSharedSink(sink);
+                }
+                manager.setLevelCounter(logLevelCounter);
+                manager.setMetrics(metrics, started);
+                manager.setFirstOutputListener(firstOutputListener);
                 manager.start();
+                this.logManager = manager;
             }
 
             return p;
@@ -171,6 +355,214 @@ public class ExternalLauncher
         }
     }
 
+    /**
+     * @return The log sinks, each wrapped once in an {@link AsyncLogSink} for all the processes
+     */
+    private synchronized List<AsyncLogSink> getSharedLogSinks()
+    {
+        if (sharedLogSinks == null)
+        {
+            sharedLogSinks = new ArrayList<>();
+            for (LogSink sink : logSinks)
+                sharedLogSinks.add(sink instanceof AsyncLogSink ? (AsyncLogSink)sink : new AsyncLogSink(sink));
+        }
+        return sharedLogSinks;
+    }
+
+    /**
+     * Close the log sinks, when they aren't {@link #setCloseLogSinks(boolean) closed with each process}
+     * and no process will be launched anymore
+     *
+     * @throws IOException If a sink can't be closed, the others are closed anyway
+     */
+    public void closeLogSinks() throws IOException
+    {
+        final List<AsyncLogSink> sinks;
+        synchronized (this)
+        {
+            sinks = sharedLogSinks;
+            sharedLogSinks = null;
+        }
+        if (sinks == null)
+            return;
+
+        IOException exception = null;
+        for (AsyncLogSink sink : sinks)
+        {
+            try
+            {
+                sink.close();
+            } catch (IOException e)
+            {
+                exception = e;
+            }
+        }
+        if (exception != null)
+            throw exception;
+    }
+
+    /**
+     * @return The metrics of the profile, created if there are none
+     */
+    private LaunchMetrics getMetrics()
+    {
+        if (profile.getMetrics() == null)
+            profile.setMetrics(new LaunchMetrics(profile.getMacDockName() != null ? profile.getMacDockName() : profile.getMainClass()));
+        return profile.getMetrics();
+    }
+
+    /**
+     * Launch the program without blocking the current thread (usually the EDT),
+     * on the {@link AsyncUtil#getDefaultExecutor() default executor}
+     *
+     * @return A future completed with the created (and launched) process,
+     * or with the {@link LaunchException} if it failed
+     * @see #launch()
+     * @see AsyncUtil#edt()
+     */
+    public CompletableFuture<Process> launchAsync()
+    {
+        return this.launchAsync(AsyncUtil.getDefaultExecutor());
+    }
+
+    /**
+     * Launch the program without blocking the current thread (usually the EDT)
+     *
+     * @param executor The executor running the launch
+     * @return A future completed with the created (and launched) process,
+     * or with the {@link LaunchException} if it failed
+     * @see #launch()
+     * @see AsyncUtil#edt()
+     */
+    public CompletableFuture<Process> launchAsync(Executor executor)
+    {
+        return AsyncUtil.supply(this::launch, executor);
+    }
+
+    /**
+     * Return how the classpath and the vm arguments are given to java
+     *
+     * @return The arguments mode, {@link ArgumentsMode#INLINE} by default
+     */
+    public ArgumentsMode getArgumentsMode()
+    {
+        return argumentsMode;
+    }
+
+    /**
+     * Set how the classpath and the vm arguments are given to java, useful when
+     * the classpath is long enough to reach the command line length limit
+     *
+     * @param argumentsMode The arguments mode
+     */
+    public void setArgumentsMode(ArgumentsMode argumentsMode)
+    {
+        this.argumentsMode = argumentsMode;
+    }
+
+    /**
+     * Return the directory where the argument files are written
+     *
+     * @return The set directory, or the <code>args</code> directory of the {@link UserCache} if none was set
+     */
+    public Path getArgumentsDirectory()
+    {
+        return argumentsDirectory != null ? argumentsDirectory : UserCache.getDirectory("args");
+    }
+
+    /**
+     * Set the directory where the argument files are written
+     *
+     * @param argumentsDirectory The directory (the game directory for example)
+     */
+    public void setArgumentsDirectory(Path argumentsDirectory)
+    {
+        this.argumentsDirectory = argumentsDirectory;
+    }
+
+    /**
+     * Add a sink receiving the output of the launched process, in addition to the console
+     * (only if the logs are enabled)
+     *
+     * @param sink The sink to add
+     * @see ProcessLogManager#addSink(LogSink)
+     */
+    public void addLogSink(LogSink sink)
+    {
+        this.logSinks.add(sink);
+    }
+
+    /**
+     * @return If the log sinks are closed when the output of each process ends
+     */
+    public boolean isCloseLogSinks()
+    {
+        return this.closeLogSinks;
+    }
+
+    /**
+     * Set if the log sinks are closed when the output of each process ends (the default), or kept open to launch
+     * the program again (by a {@link LaunchSupervisor} for example) and closed with {@link #closeLogSinks()}
+     *
+     * @param closeLogSinks False to keep them open
+     */
+    public void setCloseLogSinks(boolean closeLogSinks)
+    {
+        this.closeLogSinks = closeLogSinks;
+    }
+
+    /**
+     * Return the log manager pumping the output of the last launched process
+     *
+     * @return The log manager, null if no process was launched or the logs are disabled
+     */
+    public ProcessLogManager getLogManager()
+    {
+        return this.logManager;
+    }
+
+    /**
+     * Return the counter of the log lines by level
+     *
+     * @return The counter, null if none was set
+     */
+    public LogLevelCounter getLogLevelCounter()
+    {
+        return this.logLevelCounter;
+    }
+
+    /**
+     * Count the lines of the output of the launched process by level (only if the logs are enabled)
+     *
+     * @param logLevelCounter The counter
+     * @see ProcessLogManager#setLevelCounter(LogLevelCounter)
+     */
+    public void setLogLevelCounter(LogLevelCounter logLevelCounter)
+    {
+        this.logLevelCounter = logLevelCounter;
+    }
+
+    /**
+     * Return the AppCDS archive of the launched program
+     *
+     * @return The shared archive, null if none is used
+     */
+    public SharedArchive getSharedArchive()
+    {
+        return this.sharedArchive;
+    }
+
+    /**
+     * Use an AppCDS archive to start faster, if the java executable supports it
+     *
+     * @param sharedArchive The shared archive, null to not use any
+     * @see SharedArchive
+     */
+    public void setSharedArchive(SharedArchive sharedArchive)
+    {
+        this.sharedArchive = sharedArchive;
+    }
+
     /**
      * The Before Launching event
      * Null by default, or the given one
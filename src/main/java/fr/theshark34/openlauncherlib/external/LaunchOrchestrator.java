@@ -0,0 +1,486 @@
+package fr.theshark34.openlauncherlib.external;
+
+import fr.theshark34.openlauncherlib.util.AsyncUtil;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Launch Orchestrator
+ *
+ * <p>
+ * Launch many programs from the same host : at most <code>maxParallel</code> processes run at the same time,
+ * the others wait in a queue, and two starts are always separated by at least <code>staggerMillis</code>
+ * so the instances don't all read the disk and load their classes at the same moment.
+ * Each submitted launch is tracked by an {@link Instance}, and {@link #getMetrics()} aggregates them.
+ * </p>
+ *
+ * <pre>{@code
+ *     LaunchOrchestrator orchestrator = new LaunchOrchestrator(4, 2000);
+ *     for (ExternalLaunchProfile profile : profiles)
+ *         orchestrator.submit(profile);
+ * }</pre>
+ */
+public class LaunchOrchestrator
+{
+    public enum State
+    {
+        QUEUED,
+        STARTING,
+        RUNNING,
+        EXITED,
+        FAILED,
+        CANCELLED
+    }
+
+    private final int maxParallel;
+    private final long staggerMillis;
+    private final Executor waitExecutor;
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final Queue<Instance> pending = new ArrayDeque<>();
+    /** The launches dispatched and waiting for their stagger delay. */
+    private final Map<Instance, ScheduledFuture<?>> scheduled = new HashMap<>();
+    private final List<Instance> instances = new ArrayList<>();
+    private int running;
+    private long nextStart;
+    private boolean shutdown;
+    private boolean destroyed;
+
+    /**
+     * The Launch Orchestrator
+     *
+     * @param maxParallel   The maximum number of processes running at the same time
+     * @param staggerMillis The minimum delay between two starts, in milliseconds
+     */
+    public LaunchOrchestrator(int maxParallel, long staggerMillis)
+    {
+        this(maxParallel, staggerMillis, AsyncUtil.getDefaultExecutor());
+    }
+
+    /**
+     * The Launch Orchestrator
+     *
+     * @param maxParallel   The maximum number of processes running at the same time
+     * @param staggerMillis The minimum delay between two starts, in milliseconds
+     * @param waitExecutor  The executor waiting for the processes to exit, a task per running process
+     *                      is blocked on it so it must have at least <code>maxParallel</code> threads
+     */
+    public LaunchOrchestrator(int maxParallel, long staggerMillis, Executor waitExecutor)
+    {
+        if (maxParallel < 1)
+            throw new IllegalArgumentException("maxParallel must be at least 1");
+
+        this.maxParallel = maxParallel;
+        this.staggerMillis = staggerMillis;
+        this.waitExecutor = waitExecutor;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "OpenLauncherLib-Orchestrator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Queue a launch
+     *
+     * @param profile The profile to launch
+     * @return The launch instance
+     */
+    public Instance submit(ExternalLaunchProfile profile)
+    {
+        return this.submit(new ExternalLauncher(profile));
+    }
+
+    /**
+     * Queue a launch
+     *
+     * @param launcher The launcher to use, it must not be launched elsewhere
+     * @return The launch instance
+     */
+    public Instance submit(ExternalLauncher launcher)
+    {
+        final Instance instance = new Instance(launcher);
+        synchronized (this)
+        {
+            if (this.shutdown)
+                throw new IllegalStateException("The orchestrator is shut down");
+
+            this.instances.add(instance);
+            this.pending.add(instance);
+            this.dispatch();
+        }
+        return instance;
+    }
+
+    /**
+     * Schedule the pending launches that fit in the free slots
+     */
+    private synchronized void dispatch()
+    {
+        while (this.running < this.maxParallel && !this.pending.isEmpty())
+        {
+            final Instance instance = this.pending.poll();
+            this.running++;
+
+            final long now = System.currentTimeMillis();
+            final long start = Math.max(now, this.nextStart);
+            this.nextStart = start + this.staggerMillis;
+            this.scheduled.put(instance, this.scheduler.schedule(() -> this.start(instance), start - now, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private void start(Instance instance)
+    {
+        synchronized (this)
+        {
+            this.scheduled.remove(instance);
+            if (this.shutdown)
+            {
+                this.running--;
+                cancel(instance);
+                return;
+            }
+            instance.state = State.STARTING;
+        }
+
+        final Process process;
+        try
+        {
+            process = instance.launcher.launch(() -> instance.firstOutputTime = System.nanoTime());
+        } catch (Throwable t)
+        {
+            instance.state = State.FAILED;
+            instance.started.completeExceptionally(t);
+            instance.exit.completeExceptionally(t);
+            this.release();
+            return;
+        }
+
+        instance.process = process;
+        instance.startTime = System.nanoTime();
+        instance.state = State.RUNNING;
+        instance.started.complete(process);
+
+        synchronized (this)
+        {
+            // destroyAll() was called while the process was starting
+            if (this.destroyed)
+                process.destroy();
+        }
+
+        try
+        {
+            this.waitExecutor.execute(() -> this.waitFor(instance));
+        } catch (RuntimeException e)
+        {
+            new Thread(() -> this.waitFor(instance), "OpenLauncherLib-Orchestrator-Wait").start();
+        }
+    }
+
+    private void waitFor(Instance instance)
+    {
+        int exitCode;
+        try
+        {
+            exitCode = instance.process.waitFor();
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            instance.process.destroy();
+            exitCode = -1;
+        }
+
+        instance.exitTime = System.nanoTime();
+        instance.exitCode = exitCode;
+        instance.state = State.EXITED;
+        instance.exit.complete(exitCode);
+        this.release();
+    }
+
+    private synchronized void release()
+    {
+        this.running--;
+        if (!this.shutdown)
+            this.dispatch();
+    }
+
+    /**
+     * Cancel the launches still waiting in the queue or for their stagger delay, and refuse new ones.
+     * The running processes are left untouched, see {@link #destroyAll()}
+     */
+    public void shutdown()
+    {
+        final List<Instance> cancelled;
+        synchronized (this)
+        {
+            this.shutdown = true;
+            cancelled = new ArrayList<>(this.pending);
+            this.pending.clear();
+
+            for (Map.Entry<Instance, ScheduledFuture<?>> entry : this.scheduled.entrySet())
+            {
+                // Otherwise it is already starting, and start() sees the shutdown
+                if (entry.getValue().cancel(false))
+                {
+                    this.running--;
+                    cancelled.add(entry.getKey());
+                }
+            }
+            this.scheduled.clear();
+        }
+
+        for (Instance instance : cancelled)
+            cancel(instance);
+        this.scheduler.shutdown();
+    }
+
+    /**
+     * Cancel the pending launches and destroy the running processes,
+     * including the ones still starting
+     */
+    public void destroyAll()
+    {
+        synchronized (this)
+        {
+            this.destroyed = true;
+        }
+        this.shutdown();
+        for (Instance instance : this.getInstances())
+        {
+            if (instance.process != null)
+                instance.process.destroy();
+        }
+    }
+
+    private static void cancel(Instance instance)
+    {
+        instance.state = State.CANCELLED;
+        instance.started.completeExceptionally(new CancellationException());
+        instance.exit.completeExceptionally(new CancellationException());
+    }
+
+    /**
+     * Return all the submitted instances, in submission order
+     *
+     * @return A copy of the instances list
+     */
+    public synchronized List<Instance> getInstances()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(this.instances));
+    }
+
+    /**
+     * Return aggregate metrics about the submitted instances
+     *
+     * @return A snapshot of the metrics
+     */
+    public Metrics getMetrics()
+    {
+        return new Metrics(this.getInstances());
+    }
+
+    public int getMaxParallel()
+    {
+        return this.maxParallel;
+    }
+
+    public long getStaggerMillis()
+    {
+        return this.staggerMillis;
+    }
+
+    /**
+     * A launch submitted to the orchestrator
+     */
+    public static class Instance
+    {
+        private final ExternalLauncher launcher;
+        private final long submitTime = System.nanoTime();
+        private final CompletableFuture<Process> started = new CompletableFuture<>();
+        private final CompletableFuture<Integer> exit = new CompletableFuture<>();
+
+        private volatile State state = State.QUEUED;
+        private volatile Process process;
+        private volatile long startTime;
+        private volatile long firstOutputTime;
+        private volatile long exitTime;
+        private volatile int exitCode;
+
+        private Instance(ExternalLauncher launcher)
+        {
+            this.launcher = launcher;
+        }
+
+        public ExternalLauncher getLauncher()
+        {
+            return this.launcher;
+        }
+
+        public State getState()
+        {
+            return this.state;
+        }
+
+        /**
+         * @return The process, or null if it isn't started yet
+         */
+        public Process getProcess()
+        {
+            return this.process;
+        }
+
+        /**
+         * @return A future completed with the process when it is started
+         */
+        public CompletableFuture<Process> getStarted()
+        {
+            return this.started;
+        }
+
+        /**
+         * @return A future completed with the exit code when the process exits
+         */
+        public CompletableFuture<Integer> getExit()
+        {
+            return this.exit;
+        }
+
+        /**
+         * @return The time between the submission and the process creation (queue and stagger included)
+         * in milliseconds, or -1 if it isn't started
+         */
+        public long getTimeToStart()
+        {
+            return this.startTime == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(this.startTime - this.submitTime);
+        }
+
+        /**
+         * @return The time between the process creation and its first output in milliseconds,
+         * or -1 if it didn't print anything yet (or if the logs are disabled)
+         */
+        public long getTimeToFirstLog()
+        {
+            // The output can be read before the start time is recorded
+            return this.firstOutputTime == 0 || this.startTime == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(Math.max(0, this.firstOutputTime - this.startTime));
+        }
+
+        /**
+         * @return The time the process ran in milliseconds, or -1 if it didn't exit
+         */
+        public long getRunTime()
+        {
+            return this.exitTime == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(this.exitTime - this.startTime);
+        }
+
+        /**
+         * @return The exit code, only meaningful in the {@link State#EXITED} state
+         */
+        public int getExitCode()
+        {
+            return this.exitCode;
+        }
+    }
+
+    /**
+     * Aggregate metrics of the instances of an orchestrator
+     */
+    public static class Metrics
+    {
+        private final Map<State, Integer> states = new TreeMap<>();
+        private final Map<Integer, Integer> exitCodes = new TreeMap<>();
+        private long totalTimeToStart;
+        private long maxTimeToStart;
+        private int started;
+        private long totalTimeToFirstLog;
+        private long maxTimeToFirstLog;
+        private int logged;
+
+        private Metrics(List<Instance> instances)
+        {
+            for (State state : State.values())
+                this.states.put(state, 0);
+
+            for (Instance instance : instances)
+            {
+                this.states.merge(instance.getState(), 1, Integer::sum);
+                if (instance.getState() == State.EXITED)
+                    this.exitCodes.merge(instance.getExitCode(), 1, Integer::sum);
+
+                final long timeToStart = instance.getTimeToStart();
+                if (timeToStart >= 0)
+                {
+                    this.started++;
+                    this.totalTimeToStart += timeToStart;
+                    this.maxTimeToStart = Math.max(this.maxTimeToStart, timeToStart);
+                }
+
+                final long timeToFirstLog = instance.getTimeToFirstLog();
+                if (timeToFirstLog >= 0)
+                {
+                    this.logged++;
+                    this.totalTimeToFirstLog += timeToFirstLog;
+                    this.maxTimeToFirstLog = Math.max(this.maxTimeToFirstLog, timeToFirstLog);
+                }
+            }
+        }
+
+        /**
+         * @param state A state
+         * @return The number of instances in this state
+         */
+        public int getCount(State state)
+        {
+            return this.states.get(state);
+        }
+
+        /**
+         * @return The number of exited instances by exit code
+         */
+        public Map<Integer, Integer> getExitCodes()
+        {
+            return Collections.unmodifiableMap(this.exitCodes);
+        }
+
+        public long getAverageTimeToStart()
+        {
+            return this.started == 0 ? -1 : this.totalTimeToStart / this.started;
+        }
+
+        public long getMaxTimeToStart()
+        {
+            return this.started == 0 ? -1 : this.maxTimeToStart;
+        }
+
+        public long getAverageTimeToFirstLog()
+        {
+            return this.logged == 0 ? -1 : this.totalTimeToFirstLog / this.logged;
+        }
+
+        public long getMaxTimeToFirstLog()
+        {
+            return this.logged == 0 ? -1 : this.maxTimeToFirstLog;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Metrics{states=" + this.states + ", exitCodes=" + this.exitCodes +
+                    ", avgTimeToStart=" + this.getAverageTimeToStart() + "ms, maxTimeToStart=" + this.getMaxTimeToStart() +
+                    "ms, avgTimeToFirstLog=" + this.getAverageTimeToFirstLog() + "ms, maxTimeToFirstLog=" + this.getMaxTimeToFirstLog() + "ms}";
+        }
+    }
+}
@@ -0,0 +1,512 @@
+package fr.theshark34.openlauncherlib.external;
+
+import fr.theshark34.openlauncherlib.LaunchException;
+import fr.theshark34.openlauncherlib.util.AsyncUtil;
+import fr.theshark34.openlauncherlib.util.LogUtil;
+import fr.theshark34.openlauncherlib.util.ProcessLogManager;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Launch Supervisor
+ *
+ * <p>
+ * Keep a program running : when it exits, it is launched again according to the {@link RestartPolicy}, after a delay
+ * growing exponentially with the consecutive crashes (<code>initialBackoff * multiplier^n</code>, up to
+ * <code>maxBackoff</code>, with a random jitter so many supervised instances don't restart together). A run longer
+ * than <code>stableTime</code> resets the delay, a shorter one increases it even if the program exited normally. If the program crashes <code>maxCrashes</code> times within
+ * <code>crashWindow</code>, it is considered in a crash loop and isn't restarted anymore.
+ * </p>
+ *
+ * <p>
+ * The command is built once by the launcher (argument files, shared archive, ...) and reused by every restart,
+ * only the process is started again. The log sinks of the launcher are kept open for all the runs (a rolling file
+ * keeps the logs of a crashed run in a segment) and closed once the program isn't supervised anymore.
+ * </p>
+ *
+ * <pre>{@code
+ *     LaunchSupervisor supervisor = new LaunchSupervisor(new ExternalLauncher(profile), LaunchSupervisor.RestartPolicy.ON_FAILURE);
+ *     supervisor.setMaxCrashes(5, TimeUnit.MINUTES.toMillis(5));
+ *     supervisor.start(); // throws LaunchException
+ *     supervisor.getTermination().thenAccept(state -> ...);
+ * }</pre>
+ */
+public class LaunchSupervisor
+{
+    /** The time given to the logs of an exited process to be delivered, in milliseconds. */
+    private static final long LOG_TIMEOUT = 5000;
+
+    private static volatile ScheduledExecutorService scheduler;
+
+    public enum RestartPolicy
+    {
+        /**
+         * Never restart the program
+         */
+        NEVER,
+        /**
+         * Restart the program when it exits with another code than 0, or can't be started
+         */
+        ON_FAILURE,
+        /**
+         * Always restart the program, until {@link #stop()} (immediately after a run longer than the stable time)
+         */
+        ALWAYS
+    }
+
+    public enum State
+    {
+        IDLE,
+        RUNNING,
+        /**
+         * Waiting before a restart
+         */
+        BACKOFF,
+        /**
+         * Exited and not restarted, because of the policy or {@link #stop()}
+         */
+        STOPPED,
+        /**
+         * Crashed too many times and not restarted
+         */
+        CRASH_LOOP
+    }
+
+    private final ExternalLauncher launcher;
+    private final RestartPolicy policy;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<State> termination = new CompletableFuture<>();
+    /** End times of the recent crashes, in milliseconds. */
+    private final Deque<Long> crashes = new ArrayDeque<>();
+
+    private long initialBackoff = 1000;
+    private long maxBackoff = 60000;
+    private double multiplier = 2;
+    private double jitter = 0.2;
+    private long stableTime = 60000;
+    private int maxCrashes = 5;
+    private long crashWindow = 60000;
+    private Executor waitExecutor = AsyncUtil.getDefaultExecutor();
+
+    private volatile List<String> command;
+    private volatile State state = State.IDLE;
+    private volatile Process process;
+    private long startTime;
+    private int consecutiveCrashes;
+    private int restarts;
+    private ScheduledFuture<?> pendingRestart;
+
+    /**
+     * The Launch Supervisor
+     *
+     * @param launcher The launcher to supervise, it must not be launched elsewhere
+     * @param policy   When the program is restarted
+     */
+    public LaunchSupervisor(ExternalLauncher launcher, RestartPolicy policy)
+    {
+        this.launcher = launcher;
+        this.policy = policy;
+    }
+
+    /**
+     * Launch the program for the first time
+     *
+     * @return The created (and launched) process
+     * @throws LaunchException If the first launch failed, it isn't retried
+     */
+    public Process start() throws LaunchException
+    {
+        synchronized (this)
+        {
+            if (this.command != null)
+                throw new IllegalStateException("The supervisor is already started");
+            this.launcher.setCloseLogSinks(false);
+            this.command = this.launcher.prepare();
+        }
+
+        try
+        {
+            return this.launch();
+        } catch (LaunchException e)
+        {
+            this.terminate(State.STOPPED);
+            throw e;
+        }
+    }
+
+    private Process launch() throws LaunchException
+    {
+        final Process process = this.launcher.start(this.command, null);
+        synchronized (this)
+        {
+            this.process = process;
+            this.startTime = System.currentTimeMillis();
+            if (this.terminated())
+                process.destroy(); // Stopped while starting
+            else
+                this.state = State.RUNNING;
+        }
+
+        for (Listener listener : this.listeners)
+            listener.onStart(process, this.restarts);
+
+        this.waitExecutor.execute(() -> this.waitFor(process));
+        return process;
+    }
+
+    private void waitFor(Process process)
+    {
+        int exitCode;
+        try
+        {
+            exitCode = process.waitFor();
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            process.destroy();
+            exitCode = -1;
+        }
+
+        for (Listener listener : this.listeners)
+            listener.onExit(process, exitCode);
+        this.onEnd(exitCode != 0);
+    }
+
+    /**
+     * Decide what to do after a run
+     *
+     * @param failed True if the program crashed or couldn't be started
+     */
+    private void onEnd(boolean failed)
+    {
+        final long delay;
+        synchronized (this)
+        {
+            if (this.terminated())
+                return;
+
+            final long now = System.currentTimeMillis();
+            final boolean stable = now - this.startTime >= this.stableTime;
+            if (stable)
+                this.consecutiveCrashes = 0;
+
+            if (this.policy == RestartPolicy.NEVER || (!failed && this.policy == RestartPolicy.ON_FAILURE))
+            {
+                this.terminate(State.STOPPED);
+                return;
+            }
+
+            if (failed)
+            {
+                this.crashes.addLast(now);
+                while (!this.crashes.isEmpty() && now - this.crashes.peekFirst() > this.crashWindow)
+                    this.crashes.removeFirst();
+
+                if (this.crashes.size() >= this.maxCrashes)
+                {
+                    LogUtil.err("crash-loop");
+                    this.terminate(State.CRASH_LOOP);
+                    return;
+                }
+            }
+
+            // A program exiting normally right after its start would otherwise be restarted in a tight loop
+            if (failed || !stable)
+                this.consecutiveCrashes++;
+
+            delay = this.consecutiveCrashes > 0 ? this.getBackoff(this.consecutiveCrashes) : 0;
+            this.state = State.BACKOFF;
+            this.pendingRestart = getScheduler().schedule(this::restart, delay, TimeUnit.MILLISECONDS);
+        }
+
+        LogUtil.info("restart", delay + "ms");
+    }
+
+    private void restart()
+    {
+        synchronized (this)
+        {
+            if (this.terminated())
+                return;
+            this.restarts++;
+        }
+
+        try
+        {
+            // The first run dumped the shared archive, the next ones map it
+            if (this.restarts == 1 && this.launcher.getSharedArchive() != null)
+                this.command = this.launcher.prepare();
+            // Don't mix the last lines of the previous run with the new one
+            this.awaitLogs();
+            this.launch();
+        } catch (LaunchException e)
+        {
+            LogUtil.err("ex-caught", e.toString());
+            synchronized (this)
+            {
+                this.startTime = System.currentTimeMillis();
+            }
+            this.onEnd(true);
+        }
+    }
+
+    /**
+     * Return the delay before a restart
+     *
+     * @param crashes The number of consecutive crashes, 1 for the first one
+     * @return The delay in milliseconds, with the jitter applied
+     */
+    public long getBackoff(int crashes)
+    {
+        final double backoff = Math.min(this.maxBackoff, this.initialBackoff * Math.pow(this.multiplier, Math.max(0, crashes - 1)));
+        final double jitter = this.jitter <= 0 ? 0 : ThreadLocalRandom.current().nextDouble(-this.jitter, this.jitter);
+        return Math.max(0, Math.round(backoff * (1 + jitter)));
+    }
+
+    /**
+     * Stop supervising and destroy the program, it isn't restarted anymore
+     */
+    public void stop()
+    {
+        final Process process;
+        synchronized (this)
+        {
+            if (this.terminated())
+                return;
+            process = this.process;
+            if (this.pendingRestart != null)
+                this.pendingRestart.cancel(false);
+            this.terminate(State.STOPPED);
+        }
+
+        if (process != null)
+            process.destroy();
+    }
+
+    private synchronized boolean terminated()
+    {
+        return this.state == State.STOPPED || this.state == State.CRASH_LOOP;
+    }
+
+    private void terminate(State state)
+    {
+        this.state = state;
+        this.waitExecutor.execute(() -> {
+            this.closeLogSinks();
+            this.termination.complete(state);
+        });
+    }
+
+    /**
+     * Wait until the output of the last process is delivered to the log sinks
+     */
+    private void awaitLogs()
+    {
+        final ProcessLogManager manager = this.launcher.getLogManager();
+        if (manager == null)
+            return;
+
+        try
+        {
+            manager.join(LOG_TIMEOUT);
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void closeLogSinks()
+    {
+        this.awaitLogs();
+        try
+        {
+            this.launcher.closeLogSinks();
+        } catch (IOException e)
+        {
+            LogUtil.err("log-err", e.toString());
+        }
+    }
+
+    private static ScheduledExecutorService getScheduler()
+    {
+        if (scheduler == null)
+        {
+            synchronized (LaunchSupervisor.class)
+            {
+                if (scheduler == null)
+                {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        final Thread thread = new Thread(runnable, "OpenLauncherLib-Supervisor");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * @param listener A listener notified of the starts and exits of the program
+     */
+    public void addListener(Listener listener)
+    {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener)
+    {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * @return A future completed with {@link State#STOPPED} or {@link State#CRASH_LOOP} when the program
+     * isn't supervised anymore, once its logs are delivered and the log sinks closed
+     */
+    public CompletableFuture<State> getTermination()
+    {
+        return this.termination;
+    }
+
+    public ExternalLauncher getLauncher()
+    {
+        return this.launcher;
+    }
+
+    public RestartPolicy getPolicy()
+    {
+        return this.policy;
+    }
+
+    public State getState()
+    {
+        return this.state;
+    }
+
+    /**
+     * @return The current (or last) process, null if the program wasn't started
+     */
+    public Process getProcess()
+    {
+        return this.process;
+    }
+
+    /**
+     * @return The number of restarts, the first launch excluded
+     */
+    public synchronized int getRestarts()
+    {
+        return this.restarts;
+    }
+
+    /**
+     * @param initialBackoff The delay before the restart after a first crash, in milliseconds
+     * @param maxBackoff     The maximum delay, in milliseconds
+     * @param multiplier     The factor applied to the delay after each consecutive crash
+     */
+    public void setBackoff(long initialBackoff, long maxBackoff, double multiplier)
+    {
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.multiplier = multiplier;
+    }
+
+    public long getInitialBackoff()
+    {
+        return this.initialBackoff;
+    }
+
+    public long getMaxBackoff()
+    {
+        return this.maxBackoff;
+    }
+
+    public double getMultiplier()
+    {
+        return this.multiplier;
+    }
+
+    public double getJitter()
+    {
+        return this.jitter;
+    }
+
+    /**
+     * @param jitter The maximum random variation of the delays, 0.2 for +/- 20% (the default)
+     */
+    public void setJitter(double jitter)
+    {
+        this.jitter = jitter;
+    }
+
+    public long getStableTime()
+    {
+        return this.stableTime;
+    }
+
+    /**
+     * @param stableTime The run time in milliseconds after which the consecutive crashes are forgotten,
+     *                   a shorter run is restarted after a delay even if it didn't crash
+     */
+    public void setStableTime(long stableTime)
+    {
+        this.stableTime = stableTime;
+    }
+
+    public int getMaxCrashes()
+    {
+        return this.maxCrashes;
+    }
+
+    public long getCrashWindow()
+    {
+        return this.crashWindow;
+    }
+
+    /**
+     * @param maxCrashes  The number of crashes from which the program is in a crash loop
+     * @param crashWindow The time window of these crashes, in milliseconds
+     */
+    public void setMaxCrashes(int maxCrashes, long crashWindow)
+    {
+        this.maxCrashes = maxCrashes;
+        this.crashWindow = crashWindow;
+    }
+
+    /**
+     * @param waitExecutor The executor waiting for the process to exit, the default async executor by default
+     */
+    public void setWaitExecutor(Executor waitExecutor)
+    {
+        this.waitExecutor = waitExecutor;
+    }
+
+    /**
+     * A listener of the supervised program
+     */
+    public interface Listener
+    {
+        /**
+         * @param process  The started process
+         * @param restarts The number of restarts before it, 0 for the first launch
+         */
+        default void onStart(Process process, int restarts) {}
+
+        /**
+         * @param process  The exited process
+         * @param exitCode Its exit code
+         */
+        default void onExit(Process process, int exitCode) {}
+    }
+}
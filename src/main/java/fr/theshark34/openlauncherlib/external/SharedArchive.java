@@ -0,0 +1,110 @@
+package fr.theshark34.openlauncherlib.external;
+
+import fr.theshark34.openlauncherlib.JavaRuntime;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Shared Archive
+ *
+ * <p>
+ * Manage an AppCDS archive (Class Data Sharing) for an instance : the classes loaded by a launch are dumped
+ * when the game exits (<code>-XX:ArchiveClassesAtExit</code>, Java 13+), then mapped by the next launches
+ * (<code>-XX:SharedArchiveFile</code>) instead of being loaded again from the jars. On Java 19+ the JVM does both
+ * itself with <code>-XX:+AutoCreateSharedArchive</code>.
+ * </p>
+ *
+ * <p>
+ * The archive is named after the classpath and the Java runtime (path, version, vendor, modification time) :
+ * when one of them changes, another archive is used and the old ones are deleted. Nothing is added when the
+ * runtime doesn't support dynamic archives (Java 8 to 12), or when the classpath contains a directory (the JVM
+ * only archives classes from jars).
+ * </p>
+ *
+ * @see ExternalLauncher#setSharedArchive(SharedArchive)
+ */
+public class SharedArchive
+{
+    private final Path directory;
+
+    /**
+     * @param directory The directory where the archives of the instance are stored
+     */
+    public SharedArchive(Path directory)
+    {
+        this.directory = directory;
+    }
+
+    /**
+     * Return the VM arguments using (or dumping) the archive for the given runtime and classpath
+     *
+     * @param executable The java executable which will be launched
+     * @param classPath  The classpath of the launch
+     * @return The VM arguments, empty if the runtime or the classpath don't support dynamic archives
+     * @throws IOException If the runtime can't be probed or the directory can't be written
+     */
+    public List<String> getVmArgs(Path executable, String classPath) throws IOException
+    {
+        for (Path entry : ArgumentFiles.split(classPath))
+            if (Files.isDirectory(entry))
+                return Collections.emptyList();
+
+        final JavaRuntime runtime = JavaRuntime.get(executable);
+        final boolean autoCreate = runtime.supports("AutoCreateSharedArchive");
+        if (!autoCreate && !runtime.supports("ArchiveClassesAtExit"))
+            return Collections.emptyList();
+
+        final String key = ArgumentFiles.sha1(String.join("\n", classPath, runtime.getExecutable().toAbsolutePath().toString(),
+                runtime.getVersion(), String.valueOf(runtime.getVendor()), String.valueOf(runtime.getLastModified())).getBytes(StandardCharsets.UTF_8));
+        final Path archive = this.directory.resolve("app-" + key + ".jsa").toAbsolutePath();
+
+        Files.createDirectories(this.directory);
+        this.deleteArchives(archive);
+
+        if (autoCreate)
+            return Arrays.asList("-XX:+AutoCreateSharedArchive", "-XX:SharedArchiveFile=" + archive);
+        if (Files.exists(archive))
+            return Collections.singletonList("-XX:SharedArchiveFile=" + archive);
+        return Collections.singletonList("-XX:ArchiveClassesAtExit=" + archive);
+    }
+
+    /**
+     * Delete the archives, the next launch dumps a new one
+     *
+     * @throws IOException If they can't be deleted
+     */
+    public void invalidate() throws IOException
+    {
+        this.deleteArchives(null);
+    }
+
+    private void deleteArchives(Path keep) throws IOException
+    {
+        if (Files.notExists(this.directory))
+            return;
+
+        final List<Path> archives = new ArrayList<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "app-*.jsa"))
+        {
+            for (Path archive : stream)
+                archives.add(archive);
+        }
+
+        for (Path archive : archives)
+            if (keep == null || !archive.toAbsolutePath().equals(keep))
+                Files.deleteIfExists(archive);
+    }
+
+    public Path getDirectory()
+    {
+        return this.directory;
+    }
+}
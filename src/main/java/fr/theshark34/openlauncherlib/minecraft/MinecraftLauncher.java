@@ -22,14 +22,21 @@ import fr.flowarg.openlauncherlib.ModifiedByFlow;
 import fr.theshark34.openlauncherlib.LaunchException;
 import fr.theshark34.openlauncherlib.external.ClasspathConstructor;
 import fr.theshark34.openlauncherlib.external.ExternalLaunchProfile;
+import fr.theshark34.openlauncherlib.util.AsyncUtil;
 import fr.theshark34.openlauncherlib.util.LogUtil;
+import fr.theshark34.openlauncherlib.util.explorer.DirectoryIndex;
+import fr.theshark34.openlauncherlib.util.explorer.ExploredDirectory;
 import fr.theshark34.openlauncherlib.util.explorer.Explorer;
+import fr.theshark34.openlauncherlib.util.metrics.LaunchMetrics;
+import fr.theshark34.openlauncherlib.util.metrics.LaunchPhase;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 
 /**
@@ -56,18 +63,57 @@ public class MinecraftLauncher
      * @throws LaunchException If it failed
      */
     public static ExternalLaunchProfile createExternalProfile(GameInfos infos, GameFolder folder, AuthInfos authInfos) throws LaunchException
+    {
+        return createExternalProfile(infos, folder, authInfos, null);
+    }
+
+    /**
+     * Generate an External Launch Profile for Minecraft on the given executor,
+     * so the libraries listing can overlap with the UI work
+     *
+     * @param infos     The GameInfos (contains your game infos)
+     * @param folder    The GameFolder (contains your game folder organization)
+     * @param authInfos The AuthInfos (contains the user infos)
+     * @param libsIndex The index used to list the libraries folder (optional)
+     * @param executor  The executor generating the profile
+     * @return A future completed with the generated profile, or with the {@link LaunchException} if it failed
+     * @see AsyncUtil#edt()
+     */
+    public static CompletableFuture<ExternalLaunchProfile> createExternalProfileAsync(GameInfos infos, GameFolder folder, AuthInfos authInfos, DirectoryIndex libsIndex, Executor executor)
+    {
+        return AsyncUtil.supply(() -> createExternalProfile(infos, folder, authInfos, libsIndex), executor);
+    }
+
+    /**
+     * Generate an External Launch Profile for Minecraft
+     *
+     * @param infos      The GameInfos (contains your game infos)
+     * @param folder     The GameFolder (contains your game folder organization)
+     * @param authInfos  The AuthInfos (contains the user infos)
+     * @param libsIndex  The index used to list the libraries folder, only the directories that changed
+     *                   since the last launch are listed again (optional)
+     * @return The generated profile, with the {@link ExternalLaunchProfile#getMetrics() metrics} of its generation
+     * @throws LaunchException If it failed
+     * @see DirectoryIndex
+     */
+    public static ExternalLaunchProfile createExternalProfile(GameInfos infos, GameFolder folder, AuthInfos authInfos, DirectoryIndex libsIndex) throws LaunchException
     {
         LogUtil.info("mc-ext", infos.getGameVersion().getName());
         LogUtil.info("mc-check", infos.getGameDir().toString());
 
         if (authInfos == null) throw new IllegalArgumentException("authInfos == null");
 
+        final LaunchMetrics metrics = new LaunchMetrics(infos.getServerName() + " " + infos.getGameVersion().getName());
+        long time = System.nanoTime();
         checkFolder(folder, infos.getGameDir());
+        time = metrics.end(LaunchPhase.CHECK_FOLDER, time);
 
         LogUtil.info("mc-cp");
 
         final ClasspathConstructor constructor = new ClasspathConstructor();
-        final List<Path> libs = Explorer.dir(infos.getGameDir()).sub(folder.getLibsFolder()).allRecursive().files().match("^(.*\\.((jar)$))*$").get();
+        final ExploredDirectory libsDir = Explorer.dir(infos.getGameDir()).sub(folder.getLibsFolder());
+        final List<Path> libs = (libsIndex == null ? libsDir.allRecursive() : libsDir.allRecursive(libsIndex)).files().glob("*.jar").get();
+        time = metrics.end(LaunchPhase.SCAN_LIBRARIES, time);
         final List<Path> toRemove = new ArrayList<>();
         
         libs.forEach(f -> {
@@ -100,6 +146,7 @@ public class MinecraftLauncher
 
         final String mainClass = infos.getGameTweaks() == null || infos.getGameTweaks().length == 0 ? infos.getGameVersion().getGameType().getMainClass(infos) : GameTweak.LAUNCHWRAPPER_MAIN_CLASS;
         final String classpath = constructor.make();
+        time = metrics.end(LaunchPhase.CLASSPATH, time);
         final List<String> args = infos.getGameVersion().getGameType().getLaunchArgs(infos, folder, authInfos);
         final List<String> vmArgs = new ArrayList<>();
         vmArgs.add("-Djava.library.path=" + Explorer.dir(infos.getGameDir()).sub(folder.getNativesFolder()).get().toString());
@@ -115,7 +162,10 @@ public class MinecraftLauncher
             }
         }
 
+        metrics.end(LaunchPhase.ARGUMENTS, time);
+
         final ExternalLaunchProfile profile = new ExternalLaunchProfile(mainClass, classpath, vmArgs, args, true, infos.getServerName(), infos.getGameDir());
+        profile.setMetrics(metrics);
         LogUtil.info("done");
 
         return profile;
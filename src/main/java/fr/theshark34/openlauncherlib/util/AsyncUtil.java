@@ -0,0 +1,103 @@
+package fr.theshark34.openlauncherlib.util;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Async Util class
+ *
+ * <p>
+ * Executors and helpers used by the asynchronous launch methods.
+ * The launch work (JSON parsing, classpath building, process start) runs on
+ * {@link #getDefaultExecutor()} or on a given one, and the callbacks updating
+ * the UI can be moved back to the Event Dispatch Thread with {@link #edt()}.
+ * </p>
+ *
+ * <pre>{@code
+ *     launcher.launchAsync().thenAcceptAsync(process -> frame.setVisible(false), AsyncUtil.edt());
+ * }</pre>
+ */
+public class AsyncUtil
+{
+    private static final Executor EDT = command -> {
+        if (SwingUtilities.isEventDispatchThread())
+            command.run();
+        else
+            SwingUtilities.invokeLater(command);
+    };
+
+    private static volatile ExecutorService defaultExecutor;
+
+    /**
+     * Return the executor used when none is given : a cached pool of daemon threads,
+     * created on first use
+     *
+     * @return The default executor
+     */
+    public static Executor getDefaultExecutor()
+    {
+        if (defaultExecutor == null)
+        {
+            synchronized (AsyncUtil.class)
+            {
+                if (defaultExecutor == null)
+                {
+                    final AtomicInteger count = new AtomicInteger();
+                    defaultExecutor = Executors.newCachedThreadPool(runnable -> {
+                        final Thread thread = new Thread(runnable, "OpenLauncherLib-Async-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * Return an executor running the tasks on the Event Dispatch Thread,
+     * directly if it is already the current thread
+     *
+     * @return The EDT executor
+     */
+    public static Executor edt()
+    {
+        return EDT;
+    }
+
+    /**
+     * Run a task on the given executor
+     *
+     * <p>
+     * Unlike {@link CompletableFuture#supplyAsync}, the returned future is completed with the exception thrown
+     * by the task itself (a {@link fr.theshark34.openlauncherlib.LaunchException} for example), not wrapped
+     * in a {@link java.util.concurrent.CompletionException}.
+     * </p>
+     *
+     * @param task     The task to run
+     * @param executor The executor to run it on
+     * @param <T>      The result type
+     * @return A future completed with the task result
+     */
+    public static <T> CompletableFuture<T> supply(Callable<T> task, Executor executor)
+    {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (future.isDone()) return;
+
+            try
+            {
+                future.complete(task.call());
+            } catch (Throwable t)
+            {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+}
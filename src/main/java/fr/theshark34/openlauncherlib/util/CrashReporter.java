@@ -19,12 +19,11 @@
 package fr.theshark34.openlauncherlib.util;
 
 import fr.flowarg.openlauncherlib.ModifiedByFlow;
+import fr.theshark34.openlauncherlib.util.crash.CrashStore;
 
 import javax.swing.*;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -54,6 +53,11 @@ public class CrashReporter
      */
     private String name;
 
+    /**
+     * The store of the crashes written in the directory
+     */
+    private CrashStore store;
+
     /**
      * Basic constructor
      *
@@ -94,7 +98,10 @@ public class CrashReporter
 
         try
         {
-            msg = "\nThe crash report is in : " + this.writeError(e).toString() + "";
+            final CrashStore.Crash crash = this.storeError(e);
+            msg = "\nThe crash report (gzip compressed) is in : " + crash.getReportFile();
+            if (crash.getCount() > 1)
+                msg += "\nThis crash happened " + crash.getCount() + " times, the report is the one of the latest";
         } catch (IOException e2)
         {
             LogUtil.err("report-error");
@@ -108,28 +115,43 @@ public class CrashReporter
     }
 
     /**
-     * Write a stacktrace to a file
+     * Write a stacktrace to the crash store, the report of a crash which already happened replaces the previous one
      *
      * @param e The exception
-     * @return The file where the crash was saved
+     * @return The file where the crash was saved (gzipped)
      * @throws IOException If it failed to write the crash
+     * @see CrashStore
      */
     public Path writeError(Exception e) throws IOException
     {
-        Path path;
-        int  number = 0;
-        while (Files.exists(path = this.dir.resolve("crash-" + number + ".txt")))
-            number++;
-
-        LogUtil.info("writing-crash", path.toString());
-        Files.createDirectories(path.getParent());
+        return this.storeError(e).getReportFile();
+    }
 
-        try(final BufferedWriter writer = Files.newBufferedWriter(path))
-        {
-            writer.write(makeCrashReport(name, e));
-        }
+    /**
+     * Write a stacktrace to the crash store, the report of a crash which already happened replaces the previous one
+     *
+     * @param e The exception
+     * @return The stored crash, its count is greater than 1 if it already happened
+     * @throws IOException If it failed to write the crash
+     * @see CrashStore
+     */
+    public CrashStore.Crash storeError(Exception e) throws IOException
+    {
+        final CrashStore.Crash crash = this.getStore().add(e, makeCrashReport(name, e));
+        LogUtil.info("writing-crash", crash.getReportFile().toString());
+        return crash;
+    }
 
-        return path;
+    /**
+     * Return the store of the crashes written in the crash directory
+     *
+     * @return The crash store
+     */
+    public synchronized CrashStore getStore()
+    {
+        if (store == null)
+            store = new CrashStore(dir);
+        return store;
     }
 
     /**
@@ -147,9 +169,10 @@ public class CrashReporter
      *
      * @param dir The crash dir
      */
-    public void setDir(Path dir)
+    public synchronized void setDir(Path dir)
     {
         this.dir = dir;
+        this.store = null;
     }
 
     /**
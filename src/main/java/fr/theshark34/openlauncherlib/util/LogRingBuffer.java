@@ -0,0 +1,133 @@
+package fr.theshark34.openlauncherlib.util;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Log Ring Buffer
+ *
+ * <p>
+ * Keep the last lines of a log as raw bytes in fixed size arrays : appending never allocates,
+ * the lines are only decoded when they are read (for a crash report for example).
+ * The oldest lines are dropped when there are more than <code>maxLines</code> lines
+ * or more than <code>maxBytes</code> bytes.
+ * </p>
+ */
+public class LogRingBuffer
+{
+    private final byte[] data;
+    private final int maxLines;
+    /** End of the last lines, one more than maxLines so the start of the oldest kept line is known. */
+    private final long[] lineEnds;
+
+    /** Number of bytes ever appended, the data position of a byte is its absolute position modulo the capacity. */
+    private long written;
+    /** Number of lines ever completed. */
+    private long lines;
+
+    /**
+     * The Log Ring Buffer
+     *
+     * @param maxLines The maximum number of lines kept
+     * @param maxBytes The maximum number of bytes kept, longer lines are truncated
+     */
+    public LogRingBuffer(int maxLines, int maxBytes)
+    {
+        this.data = new byte[maxBytes];
+        this.maxLines = maxLines;
+        this.lineEnds = new long[maxLines + 1];
+    }
+
+    /**
+     * Append some bytes, each <code>\n</code> ends a line
+     *
+     * @param bytes  The bytes array
+     * @param offset The offset of the first byte to append
+     * @param length The number of bytes to append
+     */
+    public synchronized void append(byte[] bytes, int offset, int length)
+    {
+        final int end = offset + length;
+        int start = offset;
+        for (int i = offset; i < end; i++)
+        {
+            if (bytes[i] != '\n') continue;
+
+            this.copy(bytes, start, i - start);
+            this.lineEnds[(int) (this.lines++ % this.lineEnds.length)] = this.written;
+            start = i + 1;
+        }
+        this.copy(bytes, start, end - start);
+    }
+
+    private void copy(byte[] bytes, int offset, int length)
+    {
+        final int capacity = this.data.length;
+        if (length > capacity)
+        {
+            // Only the end can be kept
+            this.written += length - capacity;
+            offset += length - capacity;
+            length = capacity;
+        }
+
+        final int position = (int) (this.written % capacity);
+        final int first = Math.min(length, capacity - position);
+        System.arraycopy(bytes, offset, this.data, position, first);
+        System.arraycopy(bytes, offset + first, this.data, 0, length - first);
+        this.written += length;
+    }
+
+    /**
+     * Decode the kept lines, the current incomplete line included
+     *
+     * @param charset The charset of the log
+     * @return The lines, from the oldest to the newest
+     */
+    public synchronized List<String> getLines(Charset charset)
+    {
+        final long oldest = Math.max(0, this.written - this.data.length);
+        final long first = Math.max(0, this.lines - this.maxLines);
+
+        final List<String> result = new ArrayList<>((int) (this.lines - first) + 1);
+        for (long line = first; line < this.lines; line++)
+        {
+            final long end = this.lineEnd(line);
+            if (end >= oldest)
+                result.add(this.decode(Math.max(line == 0 ? 0 : this.lineEnd(line - 1), oldest), end, charset));
+        }
+
+        final long partial = this.lines == 0 ? 0 : this.lineEnd(this.lines - 1);
+        if (this.written > partial)
+            result.add(this.decode(Math.max(partial, oldest), this.written, charset));
+
+        return result;
+    }
+
+    private long lineEnd(long line)
+    {
+        return this.lineEnds[(int) (line % this.lineEnds.length)];
+    }
+
+    private String decode(long start, long end, Charset charset)
+    {
+        final int capacity = this.data.length;
+        final byte[] line = new byte[(int) (end - start)];
+        for (int i = 0; i < line.length; i++)
+            line[i] = this.data[(int) ((start + i) % capacity)];
+
+        int length = line.length;
+        if (length > 0 && line[length - 1] == '\r') length--;
+        return new String(line, 0, length, charset);
+    }
+
+    /**
+     * Forget all the lines
+     */
+    public synchronized void clear()
+    {
+        this.written = 0;
+        this.lines = 0;
+    }
+}
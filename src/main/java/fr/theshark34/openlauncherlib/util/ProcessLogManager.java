@@ -19,17 +19,33 @@
 package fr.theshark34.openlauncherlib.util;
 
 import fr.flowarg.openlauncherlib.ModifiedByFlow;
+import fr.theshark34.openlauncherlib.util.log.AsyncLogSink;
+import fr.theshark34.openlauncherlib.util.log.ConsoleLogSink;
+import fr.theshark34.openlauncherlib.util.log.LogLevelCounter;
+import fr.theshark34.openlauncherlib.util.log.LogSink;
+import fr.theshark34.openlauncherlib.util.log.RollingFileLogSink;
+import fr.theshark34.openlauncherlib.util.metrics.LaunchMetrics;
+import fr.theshark34.openlauncherlib.util.metrics.LaunchPhase;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The Process Log Manager
  *
  * <p>
  * Manager logs of a Process by printing and/or writing them.
+ * The output is pumped as raw bytes through a single reusable buffer : nothing is decoded or
+ * allocated per line. The last lines are kept in a {@link LogRingBuffer}, see {@link #getLastLines()}.
+ * The console, the log file and the {@link #addSink(LogSink) added sinks} are fed through
+ * {@link AsyncLogSink}s, so a slow output never stops the process pipe from being drained.
+ * The lines can be counted by level with {@link #setLevelCounter(LogLevelCounter)}.
  * </p>
  *
  * @author Litarvan
@@ -39,19 +55,24 @@ import java.nio.file.Path;
 public class ProcessLogManager extends Thread
 {
     /**
-     * If the logs should be printed
+     * Number of lines kept for {@link #getLastLines()}
      */
-    private boolean print = true;
+    public static final int DEFAULT_RING_LINES = 500;
+
+    /**
+     * Number of bytes kept for {@link #getLastLines()}
+     */
+    public static final int DEFAULT_RING_BYTES = 256 * 1024;
 
     /**
-     * The reader
+     * If the logs should be printed
      */
-    private final BufferedReader reader;
+    private boolean print = true;
 
     /**
-     * Input stream reader
+     * The input channel
      */
-    private final InputStreamReader inputStreamReader;
+    private final ReadableByteChannel input;
 
     /**
      * The file where to write the logs (optional)
@@ -59,9 +80,39 @@ public class ProcessLogManager extends Thread
     private Path toWrite;
 
     /**
-     * The writer to write the logs
+     * The sinks receiving the logs
+     */
+    private final List<LogSink> sinks = new CopyOnWriteArrayList<>();
+
+    /**
+     * The sinks not closed when the output ends
+     */
+    private final List<LogSink> sharedSinks = new CopyOnWriteArrayList<>();
+
+    /**
+     * The last lines of the logs
+     */
+    private final LogRingBuffer ringBuffer = new LogRingBuffer(DEFAULT_RING_LINES, DEFAULT_RING_BYTES);
+
+    /**
+     * The counter of the lines by level (optional)
+     */
+    private LogLevelCounter levelCounter;
+
+    /**
+     * The metrics receiving the time until the first output (optional)
+     */
+    private LaunchMetrics metrics;
+
+    /**
+     * The {@link System#nanoTime()} when the process started
      */
-    private BufferedWriter writer;
+    private long startTime;
+
+    /**
+     * Called when the process prints something for the first time (optional)
+     */
+    private Runnable firstOutputListener;
 
     /**
      * Simple constructor
@@ -87,47 +138,88 @@ public class ProcessLogManager extends Thread
 
     /**
      * Complete constructor
+     * The file is replaced on each launch and never rolled, add a {@link RollingFileLogSink} instead to keep the previous logs
      *
      * @param input   The input where to read the logs
      * @param toWrite The files where to write the logs (optional)
      */
     public ProcessLogManager(InputStream input, Path toWrite)
     {
-        this.inputStreamReader = new InputStreamReader(input, StandardCharsets.UTF_8);
-        this.reader = new BufferedReader(this.inputStreamReader);
+        this.input = Channels.newChannel(input);
         this.toWrite = toWrite;
+    }
 
-        if(this.toWrite == null) return;
+    /**
+     * Add a sink receiving the logs, delivered from its own thread
+     * (if it isn't already an {@link AsyncLogSink}, it is wrapped in one with the default settings)
+     *
+     * @param sink The sink to add
+     */
+    public void addSink(LogSink sink)
+    {
+        this.sinks.add(sink instanceof AsyncLogSink ? sink : new AsyncLogSink(sink));
+    }
 
-        try
-        {
-            this.writer = Files.newBufferedWriter(this.toWrite);
-        } catch (IOException e)
-        {
-            LogUtil.err("log-err", e.toString());
-        }
+    /**
+     * Add a sink receiving the logs, that isn't closed when the output ends :
+     * its owner closes it, once it doesn't give it to another process
+     *
+     * @param sink The sink to add
+     */
+    public void addSharedSink(AsyncLogSink sink)
+    {
+        this.sinks.add(sink);
+        this.sharedSinks.add(sink);
     }
 
     @ModifiedByFlow
     @Override
     public void run()
     {
-        String line;
+        if (this.print) this.addSink(new ConsoleLogSink());
+        if (this.toWrite != null) this.addSink(new RollingFileLogSink(this.toWrite));
+
+        final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        final byte[] bytes = buffer.array();
         try
         {
-            while ((line = this.reader.readLine()) != null)
+            while (this.input.read(buffer) != -1)
             {
-                if (this.print) System.out.printf("%s\n", line);
-
-                if(this.writer == null) continue;
+                buffer.flip();
+                final int length = buffer.remaining();
+                if (length == 0)
+                {
+                    buffer.clear();
+                    continue;
+                }
 
-                try
+                if (this.metrics != null)
+                {
+                    this.metrics.end(LaunchPhase.FIRST_OUTPUT, this.startTime);
+                    this.metrics = null;
+                }
+                if (this.firstOutputListener != null)
                 {
-                    this.writer.write(line + "\n");
-                } catch (IOException e)
+                    this.firstOutputListener.run();
+                    this.firstOutputListener = null;
+                }
+
+                this.ringBuffer.append(bytes, 0, length);
+                if (this.levelCounter != null)
+                    this.levelCounter.write(bytes, 0, length);
+                for (LogSink sink : this.sinks)
                 {
-                    LogUtil.err("log-err", e.toString());
+                    try
+                    {
+                        sink.write(bytes, 0, length);
+                    } catch (IOException e)
+                    {
+                        LogUtil.err("log-err", e.toString());
+                        this.sinks.remove(sink);
+                    }
                 }
+
+                buffer.clear();
             }
         }
         catch (IOException e)
@@ -137,15 +229,95 @@ public class ProcessLogManager extends Thread
             this.interrupt();
         }
 
-        if(this.writer == null) return;
+        try
+        {
+            if (this.levelCounter != null)
+                this.levelCounter.close();
+        } catch (IOException ignored) {}
+
+        for (LogSink sink : this.sinks)
+        {
+            if (this.sharedSinks.contains(sink))
+                continue;
+
+            try
+            {
+                sink.close();
+            } catch (IOException e)
+            {
+                LogUtil.err("log-err", e.toString());
+            }
+        }
 
         try
         {
-            this.writer.close();
-            this.inputStreamReader.close();
+            this.input.close();
         } catch (IOException ignored) {}
     }
 
+    /**
+     * Return the last lines of the logs (decoded as UTF-8), for a crash report for example
+     *
+     * @return The last lines, from the oldest to the newest
+     */
+    public List<String> getLastLines()
+    {
+        return this.ringBuffer.getLines(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Return the buffer keeping the last lines of the logs
+     *
+     * @return The ring buffer
+     */
+    public LogRingBuffer getRingBuffer()
+    {
+        return this.ringBuffer;
+    }
+
+    /**
+     * Return the counter of the lines by level
+     *
+     * @return The counter, null if the lines aren't counted
+     */
+    public LogLevelCounter getLevelCounter()
+    {
+        return this.levelCounter;
+    }
+
+    /**
+     * Count the lines by level, the lines are parsed on the thread reading the logs
+     * (the parsing doesn't allocate, it is much cheaper than the sinks)
+     *
+     * @param levelCounter The counter, null to not count the lines
+     */
+    public void setLevelCounter(LogLevelCounter levelCounter)
+    {
+        this.levelCounter = levelCounter;
+    }
+
+    /**
+     * Record the time until the process prints something as {@link LaunchPhase#FIRST_OUTPUT}
+     *
+     * @param metrics   The launch metrics
+     * @param startTime The {@link System#nanoTime()} when the process started
+     */
+    public void setMetrics(LaunchMetrics metrics, long startTime)
+    {
+        this.metrics = metrics;
+        this.startTime = startTime;
+    }
+
+    /**
+     * Call a listener when the process prints something for the first time, from the thread reading the logs
+     *
+     * @param firstOutputListener The listener, null for none
+     */
+    public void setFirstOutputListener(Runnable firstOutputListener)
+    {
+        this.firstOutputListener = firstOutputListener;
+    }
+
     /**
      * If the logs are printed
      *
@@ -23,9 +23,17 @@ import fr.theshark34.openlauncherlib.FailException;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Saver
@@ -34,6 +42,13 @@ import java.util.Properties;
  * Save some things to a file.
  * </p>
  *
+ * <p>
+ * By default each change rewrites the file. With {@link #setWriteBehind(long)}, the changes are only applied
+ * in memory and the file is written once, at most <code>delay</code> milliseconds after the first of them
+ * (or on {@link #flush()}, or when the JVM exits). The file is always replaced atomically, a crash while
+ * saving leaves the previous version.
+ * </p>
+ *
  * @author Litarvan
  * @version 3.0.2-BETA
  * @since 3.0.0-BETA
@@ -41,6 +56,15 @@ import java.util.Properties;
 @ModifiedByFlow
 public class Saver
 {
+    /**
+     * The savers with unsaved changes, flushed when the JVM exits
+     */
+    private static final Set<Saver> PENDING = new LinkedHashSet<>();
+
+    private static volatile ScheduledExecutorService scheduler;
+
+    private static boolean hookRegistered;
+
     /**
      * The file where to save the things
      */
@@ -51,6 +75,21 @@ public class Saver
      */
     private final Properties properties;
 
+    /**
+     * The delay before the changes are written, -1 to write them immediately
+     */
+    private long writeBehindDelay = -1;
+
+    /**
+     * The scheduled write of the changes, if there are some
+     */
+    private ScheduledFuture<?> pendingFlush;
+
+    /**
+     * Held while the file is written, so two saves never replace it with each other's data
+     */
+    private final Object writeLock = new Object();
+
     /**
      * The Saver
      *
@@ -92,7 +131,7 @@ public class Saver
     public void set(String key, String value)
     {
         this.properties.setProperty(key, value);
-        this.save();
+        this.changed();
     }
 
     /**
@@ -120,31 +159,174 @@ public class Saver
     }
 
     /**
-     * Save the properties (automatic when you do {@link #set(String, String)})
+     * Save the properties (automatic when you do {@link #set(String, String)}), to a temporary file moved
+     * over the file
      */
     @ModifiedByFlow
     public void save()
     {
-        try
+        synchronized (this)
         {
-            final BufferedWriter writer = Files.newBufferedWriter(this.file);
-            this.properties.store(writer, "Generated by the OpenLauncherLib Saver");
-            writer.close();
-        } catch (Throwable t)
+            if (this.pendingFlush != null)
+                this.pendingFlush.cancel(false);
+            this.pendingFlush = null;
+        }
+        synchronized (PENDING)
+        {
+            PENDING.remove(this);
+        }
+
+        synchronized (this.writeLock)
+        {
+            Path tmp = null;
+            try
+            {
+                tmp = Files.createTempFile(this.file.toAbsolutePath().getParent(), this.file.getFileName().toString(), ".tmp");
+                try (final BufferedWriter writer = Files.newBufferedWriter(tmp))
+                {
+                    this.properties.store(writer, "Generated by the OpenLauncherLib Saver");
+                }
+                Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (Throwable t)
+            {
+                try
+                {
+                    if (tmp != null)
+                        Files.deleteIfExists(tmp);
+                } catch (Throwable ignored) {}
+                throw new FailException("Can't save the properties", t);
+            }
+        }
+    }
+
+    /**
+     * Write the pending changes now, if there are some (only useful with {@link #setWriteBehind(long)})
+     */
+    public void flush()
+    {
+        synchronized (this)
+        {
+            if (this.pendingFlush == null)
+                return;
+        }
+        this.save();
+    }
+
+    /**
+     * Save the properties now, or schedule it in write-behind mode
+     */
+    private void changed()
+    {
+        synchronized (this)
+        {
+            if (this.writeBehindDelay < 0)
+            {
+                this.save();
+                return;
+            }
+
+            // The changes made before the write are coalesced with this one
+            if (this.pendingFlush != null)
+                return;
+            this.pendingFlush = getScheduler().schedule(() -> {
+                try
+                {
+                    this.flush();
+                } catch (FailException e)
+                {
+                    LogUtil.err("save-err", String.valueOf(e.getCause()));
+                }
+            }, this.writeBehindDelay, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized (PENDING)
         {
-            throw new FailException("Can't save the properties", t);
+            PENDING.add(this);
+            if (!hookRegistered)
+            {
+                hookRegistered = true;
+                Runtime.getRuntime().addShutdownHook(new Thread(Saver::flushAll, "OpenLauncherLib-Saver-Shutdown"));
+            }
         }
     }
 
+    /**
+     * Write the pending changes of all the savers
+     */
+    public static void flushAll()
+    {
+        final Saver[] savers;
+        synchronized (PENDING)
+        {
+            savers = PENDING.toArray(new Saver[0]);
+        }
+
+        for (Saver saver : savers)
+        {
+            try
+            {
+                saver.flush();
+            } catch (FailException e)
+            {
+                LogUtil.err("save-err", String.valueOf(e.getCause()));
+            }
+        }
+    }
+
+    private static ScheduledExecutorService getScheduler()
+    {
+        if (scheduler == null)
+        {
+            synchronized (Saver.class)
+            {
+                if (scheduler == null)
+                {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        final Thread thread = new Thread(runnable, "OpenLauncherLib-Saver");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Return the write-behind delay
+     *
+     * @return The delay in milliseconds, -1 if each change is written immediately (the default)
+     */
+    public synchronized long getWriteBehind()
+    {
+        return this.writeBehindDelay;
+    }
+
+    /**
+     * Coalesce the changes and write them at most <code>delay</code> milliseconds after the first one,
+     * useful when many values are set in a row (saving a form for example)
+     *
+     * @param delay The delay in milliseconds, -1 to write each change immediately (the pending changes are written)
+     */
+    public void setWriteBehind(long delay)
+    {
+        synchronized (this)
+        {
+            this.writeBehindDelay = delay;
+        }
+        if (delay < 0)
+            this.flush();
+    }
+
     /**
      * Load the properties (automatic when you do {@link #Saver(Path)}
      */
     @ModifiedByFlow
     public void load()
     {
-        try
+        try (final InputStream in = Files.newInputStream(this.file))
         {
-            this.properties.load(Files.newInputStream(this.file));
+            this.properties.load(in);
         } catch (Throwable t)
         {
             throw new FailException("Can't load the properties", t);
@@ -155,6 +337,6 @@ public class Saver
     public void remove(String key)
     {
         this.properties.remove(key);
-        this.save();
+        this.changed();
     }
 }
@@ -0,0 +1,72 @@
+package fr.theshark34.openlauncherlib.util;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Objects;
+
+/**
+ * The User Cache
+ *
+ * <p>
+ * The directory where the OpenLauncherLib keeps the files it generates (argument files, probed runtimes...) when
+ * the launcher doesn't choose one : it belongs to the current user, unlike the shared temporary directory where
+ * another user could plant or replace them. Like {@link fr.theshark34.openlauncherlib.minecraft.util.GameDirGenerator},
+ * it depends on the OS : <code>%LOCALAPPDATA%\OpenLauncherLib</code>, <code>~/Library/Caches/OpenLauncherLib</code>
+ * or <code>$XDG_CACHE_HOME/openlauncherlib</code> (<code>~/.cache/openlauncherlib</code>).
+ * </p>
+ */
+public class UserCache
+{
+    /**
+     * Return the cache directory of the current user, it may not exist yet
+     *
+     * @return The directory
+     */
+    public static Path getDirectory()
+    {
+        final String os = Objects.requireNonNull(System.getProperty("os.name")).toLowerCase();
+        if (os.contains("win"))
+        {
+            final String localAppData = System.getenv("LOCALAPPDATA");
+            return localAppData != null ? Paths.get(localAppData, "OpenLauncherLib") : Paths.get(System.getProperty("user.home"), "AppData", "Local", "OpenLauncherLib");
+        }
+        else if (os.contains("mac"))
+            return Paths.get(System.getProperty("user.home"), "Library", "Caches", "OpenLauncherLib");
+
+        final String cacheHome = System.getenv("XDG_CACHE_HOME");
+        return cacheHome != null && !cacheHome.isEmpty() ? Paths.get(cacheHome, "openlauncherlib") : Paths.get(System.getProperty("user.home"), ".cache", "openlauncherlib");
+    }
+
+    /**
+     * Return a directory in the cache of the current user
+     *
+     * @param name The name of the directory
+     * @return The directory, it may not exist yet
+     */
+    public static Path getDirectory(String name)
+    {
+        return getDirectory().resolve(name);
+    }
+
+    /**
+     * Create a directory and its missing parents, readable only by the current user where the file system
+     * supports POSIX permissions
+     *
+     * @param directory The directory
+     * @return The directory
+     * @throws IOException If it can't be created
+     */
+    public static Path createDirectories(Path directory) throws IOException
+    {
+        if (Files.isDirectory(directory))
+            return directory;
+
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix"))
+            return Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        return Files.createDirectories(directory);
+    }
+}
@@ -0,0 +1,241 @@
+package fr.theshark34.openlauncherlib.util.crash;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The Crash Fingerprint
+ *
+ * <p>
+ * Identify a crash by its normalized stack trace : the exception classes and the <code>class.method</code> of their
+ * first frames. The messages and the line numbers are ignored, as the numbers of the anonymous classes and lambdas
+ * and the reflection frames, so the same bug gives the same fingerprint from one run (or one build) to another.
+ * </p>
+ */
+public class CrashFingerprint
+{
+    /**
+     * Number of frames kept for each exception of the chain
+     */
+    private static final int MAX_FRAMES = 24;
+
+    private final List<String> frames;
+    private final String hash;
+
+    private CrashFingerprint(List<String> frames)
+    {
+        this.frames = Collections.unmodifiableList(frames);
+        this.hash = sha1(String.join("\n", frames));
+    }
+
+    /**
+     * @param throwable An exception, with its causes
+     * @return Its fingerprint
+     */
+    public static CrashFingerprint of(Throwable throwable)
+    {
+        final List<String> frames = new ArrayList<>();
+        final Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        StackTraceElement[] enclosing = new StackTraceElement[0];
+        for (Throwable t = throwable; t != null && seen.add(t); t = t.getCause())
+        {
+            frames.add(t.getClass().getName());
+
+            // Like printStackTrace, the frames in common with the enclosing trace are left out ("... n more")
+            final StackTraceElement[] trace = t.getStackTrace();
+            int unique = trace.length;
+            for (int i = enclosing.length - 1; unique > 0 && i >= 0 && trace[unique - 1].equals(enclosing[i]); i--)
+                unique--;
+
+            int kept = 0;
+            for (int i = 0; i < unique; i++)
+            {
+                final String frame = normalize(trace[i].getClassName() + "." + trace[i].getMethodName());
+                if (frame != null && kept++ < MAX_FRAMES)
+                    frames.add(frame);
+            }
+            enclosing = trace;
+        }
+        return new CrashFingerprint(frames);
+    }
+
+    /**
+     * Read the stack traces printed in a log (the last lines of a game for example).
+     * Like {@link #of(Throwable)}, the suppressed exceptions are left out
+     *
+     * @param lines The lines of the log
+     * @return Their fingerprint, made of the exception classes and the <code>at ...</code> lines
+     */
+    public static CrashFingerprint of(List<String> lines)
+    {
+        final List<String> frames = new ArrayList<>();
+        int kept = 0;
+        // The indentation of the "Suppressed: " line being skipped, its frames are indented deeper and its causes as much
+        int suppressed = -1;
+        for (String line : lines)
+        {
+            String text = line.trim();
+            if (suppressed != -1)
+            {
+                final int indentation = indentation(line);
+                if (text.isEmpty() || indentation > suppressed || (indentation == suppressed && text.startsWith("Caused by: ")))
+                    continue;
+                suppressed = -1;
+            }
+
+            if (text.startsWith("Suppressed: "))
+            {
+                suppressed = indentation(line);
+                continue;
+            }
+            if (text.startsWith("Caused by: "))
+                text = text.substring("Caused by: ".length());
+            else if (text.startsWith("Exception in thread \""))
+            {
+                // Exception in thread "main" java.lang.IllegalStateException: message
+                final int end = text.indexOf("\" ", "Exception in thread \"".length());
+                if (end != -1)
+                    text = text.substring(end + 2);
+            }
+
+            if (text.startsWith("at "))
+            {
+                final int paren = text.indexOf('(');
+                final String frame = normalize((paren == -1 ? text.substring(3) : text.substring(3, paren)).trim());
+                if (frame != null && kept++ < MAX_FRAMES)
+                    frames.add(frame);
+            }
+            else if (isExceptionHeader(text))
+            {
+                final int colon = text.indexOf(':');
+                frames.add(colon == -1 ? text : text.substring(0, colon));
+                kept = 0;
+            }
+        }
+        return new CrashFingerprint(frames);
+    }
+
+    /**
+     * @return True for lines like <code>java.lang.IllegalStateException: message</code>
+     */
+    private static boolean isExceptionHeader(String text)
+    {
+        final int colon = text.indexOf(':');
+        final String name = colon == -1 ? text : text.substring(0, colon);
+        if (name.isEmpty() || name.indexOf('.') == -1 || !(name.endsWith("Exception") || name.endsWith("Error") || name.endsWith("Throwable")))
+            return false;
+
+        for (int i = 0; i < name.length(); i++)
+        {
+            final char c = name.charAt(i);
+            if (!Character.isJavaIdentifierPart(c) && c != '.')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of whitespace characters at the start of the line
+     */
+    private static int indentation(String line)
+    {
+        int i = 0;
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) i++;
+        return i;
+    }
+
+    /**
+     * @return The frame without the generated numbers, null for a reflection frame
+     */
+    private static String normalize(String frame)
+    {
+        // Hidden classes : Foo$$Lambda$42/0x0000000800c03000
+        int hidden;
+        while ((hidden = frame.indexOf("/0x")) != -1)
+        {
+            int end = hidden + 3;
+            while (end < frame.length() && Character.digit(frame.charAt(end), 16) != -1) end++;
+            frame = frame.substring(0, hidden) + frame.substring(end);
+        }
+
+        // Module and class loader prefixes : java.base/, app//
+        frame = frame.substring(frame.lastIndexOf('/') + 1);
+        if (frame.startsWith("sun.reflect.") || frame.startsWith("jdk.internal.reflect.") || frame.startsWith("java.lang.reflect.Method.invoke"))
+            return null;
+
+        // Anonymous classes and lambdas : Foo$1.run, Foo$$Lambda$42.accept, lambda$main$0
+        final StringBuilder sb = new StringBuilder(frame.length());
+        boolean generated = false;
+        for (int i = 0; i < frame.length(); i++)
+        {
+            final char c = frame.charAt(i);
+            generated = Character.isDigit(c) && (generated || (i > 0 && frame.charAt(i - 1) == '$'));
+            if (!generated)
+                sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static String sha1(String text)
+    {
+        try
+        {
+            final StringBuilder sb = new StringBuilder();
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < 8; i++)
+                sb.append(String.format("%02x", digest[i]));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return The normalized exception classes and frames
+     */
+    public List<String> getFrames()
+    {
+        return this.frames;
+    }
+
+    /**
+     * @return The first exception class, the title of the crash
+     */
+    public String getTitle()
+    {
+        return this.frames.isEmpty() ? "Unknown" : this.frames.get(0);
+    }
+
+    /**
+     * @return The hash of the frames (16 hex characters)
+     */
+    public String getHash()
+    {
+        return this.hash;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof CrashFingerprint && ((CrashFingerprint)o).hash.equals(this.hash);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.hash.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.hash;
+    }
+}
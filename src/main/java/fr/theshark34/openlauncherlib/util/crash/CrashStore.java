@@ -0,0 +1,362 @@
+package fr.theshark34.openlauncherlib.util.crash;
+
+import fr.theshark34.openlauncherlib.util.LogUtil;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The Crash Store
+ *
+ * <p>
+ * Store crash reports in a directory, de-duplicated by {@link CrashFingerprint} : the latest report of a crash is
+ * gzipped to <code>&lt;hash&gt;.txt.gz</code>, replacing the report of its previous occurrence, and its count is
+ * incremented in <code>index.json</code>. The index is small (one entry per distinct crash, with the times of its last
+ * {@value #MAX_TIMES} occurrences), loaded once and rewritten atomically, so adding a crash doesn't list the
+ * directory and the queries ({@link #getTop(long, int)}) don't read the reports.
+ * </p>
+ *
+ * <pre>{@code
+ *     CrashStore store = new CrashStore(gameDir.resolve("crashes"));
+ *     store.add(CrashFingerprint.of(logManager.getLastLines()), String.join("\n", logManager.getLastLines()));
+ *     List<CrashStore.Crash> week = store.getTop(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(7), 5);
+ * }</pre>
+ */
+public class CrashStore
+{
+    /**
+     * Number of occurrence times kept for each crash
+     */
+    public static final int MAX_TIMES = 128;
+
+    private final Path directory;
+    private final Path indexFile;
+    private Map<String, Crash> crashes;
+
+    /**
+     * @param directory The directory of the reports and of the index
+     */
+    public CrashStore(Path directory)
+    {
+        this.directory = directory;
+        this.indexFile = directory.resolve("index.json");
+    }
+
+    /**
+     * Store the report of an exception
+     *
+     * @param throwable The exception
+     * @param report    The full report
+     * @return The crash, its count is greater than 1 if it already happened
+     * @throws IOException If the report or the index can't be written
+     */
+    public Crash add(Throwable throwable, String report) throws IOException
+    {
+        return this.add(CrashFingerprint.of(throwable), report);
+    }
+
+    /**
+     * Store a report
+     *
+     * @param fingerprint The fingerprint of the crash
+     * @param report      The full report, it replaces the report of the previous occurrence
+     * @return The crash, its count is greater than 1 if it already happened
+     * @throws IOException If the report or the index can't be written
+     */
+    public synchronized Crash add(CrashFingerprint fingerprint, String report) throws IOException
+    {
+        this.load();
+
+        final long now = System.currentTimeMillis();
+        writeGzip(this.directory.resolve(fingerprint.getHash() + ".txt.gz"), report.getBytes(StandardCharsets.UTF_8));
+
+        Crash crash = this.crashes.get(fingerprint.getHash());
+        if (crash == null)
+        {
+            crash = new Crash(this, fingerprint.getHash(), fingerprint.getTitle(), now);
+            this.crashes.put(crash.hash, crash);
+        }
+
+        crash.occur(now);
+        this.save();
+        return crash;
+    }
+
+    /**
+     * Read the report of a crash
+     *
+     * @param crash The crash
+     * @return The report of its latest occurrence
+     * @throws IOException If it can't be read
+     */
+    public String readReport(Crash crash) throws IOException
+    {
+        try (final InputStream in = new GZIPInputStream(Files.newInputStream(crash.getReportFile())))
+        {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @return All the crashes, the most recent first
+     */
+    public synchronized List<Crash> getCrashes()
+    {
+        this.load();
+        final List<Crash> result = new ArrayList<>(this.crashes.values());
+        result.sort(Comparator.comparingLong(Crash::getLastTime).reversed());
+        return result;
+    }
+
+    /**
+     * Return the crashes which happened the most since a time ("top crashes this week")
+     *
+     * @param since The time in milliseconds
+     * @param limit The maximum number of crashes returned
+     * @return The crashes, the most frequent first
+     */
+    public synchronized List<Crash> getTop(long since, int limit)
+    {
+        this.load();
+        final List<Crash> result = new ArrayList<>();
+        for (Crash crash : this.crashes.values())
+            if (crash.getCount(since) > 0)
+                result.add(crash);
+
+        result.sort(Comparator.comparingInt((Crash crash) -> crash.getCount(since)).reversed().thenComparing(Comparator.comparingLong(Crash::getLastTime).reversed()));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * @param hash The hash of a fingerprint
+     * @return The crash, null if it never happened
+     */
+    public synchronized Crash get(String hash)
+    {
+        this.load();
+        return this.crashes.get(hash);
+    }
+
+    /**
+     * Forget a crash and delete its report
+     *
+     * @param crash The crash
+     * @throws IOException If the report or the index can't be written
+     */
+    public synchronized void remove(Crash crash) throws IOException
+    {
+        this.load();
+        if (this.crashes.remove(crash.hash) != null)
+        {
+            Files.deleteIfExists(crash.getReportFile());
+            this.save();
+        }
+    }
+
+    private void load()
+    {
+        if (this.crashes != null)
+            return;
+
+        this.crashes = new LinkedHashMap<>();
+        if (Files.notExists(this.indexFile))
+            return;
+
+        try
+        {
+            final JSONArray array = new JSONObject(new String(Files.readAllBytes(this.indexFile), StandardCharsets.UTF_8)).getJSONArray("crashes");
+            for (int i = 0; i < array.length(); i++)
+            {
+                final Crash crash = Crash.fromJSON(this, array.getJSONObject(i));
+                this.crashes.put(crash.hash, crash);
+            }
+        } catch (IOException | JSONException e)
+        {
+            LogUtil.err("crash-index-err", this.indexFile + " : " + e);
+        }
+    }
+
+    private void save() throws IOException
+    {
+        final JSONArray array = new JSONArray();
+        for (Crash crash : this.crashes.values())
+            array.put(crash.toJSON());
+
+        Files.createDirectories(this.directory);
+        final Path tmp = Files.createTempFile(this.directory, "index.json", ".tmp");
+        try
+        {
+            Files.write(tmp, new JSONObject().put("crashes", array).toString(2).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, this.indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally
+        {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeGzip(Path file, byte[] bytes) throws IOException
+    {
+        Files.createDirectories(file.getParent());
+        final Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try
+        {
+            try (final OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp)))
+            {
+                out.write(bytes);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally
+        {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public Path getDirectory()
+    {
+        return this.directory;
+    }
+
+    /**
+     * A distinct crash, and its occurrences
+     */
+    public static class Crash
+    {
+        private final CrashStore store;
+        private final String hash;
+        private final String title;
+        private final long firstTime;
+        private long lastTime;
+        private int count;
+        /** Ring of the last occurrence times. */
+        private final long[] times = new long[MAX_TIMES];
+
+        private Crash(CrashStore store, String hash, String title, long firstTime)
+        {
+            this.store = store;
+            this.hash = hash;
+            this.title = title;
+            this.firstTime = firstTime;
+        }
+
+        private void occur(long time)
+        {
+            this.times[this.count % MAX_TIMES] = time;
+            this.count++;
+            this.lastTime = time;
+        }
+
+        /**
+         * @param since A time in milliseconds
+         * @return The number of occurrences since this time, among the {@value #MAX_TIMES} last ones
+         */
+        public int getCount(long since)
+        {
+            int count = 0;
+            for (int i = 0; i < Math.min(this.count, MAX_TIMES); i++)
+                if (this.times[i] >= since)
+                    count++;
+            return count;
+        }
+
+        private JSONObject toJSON()
+        {
+            return new JSONObject()
+                    .put("hash", this.hash)
+                    .put("title", this.title)
+                    .put("count", this.count)
+                    .put("first", this.firstTime)
+                    .put("times", new JSONArray(this.getTimes()));
+        }
+
+        private static Crash fromJSON(CrashStore store, JSONObject object)
+        {
+            final Crash crash = new Crash(store, object.getString("hash"), object.getString("title"), object.getLong("first"));
+            final JSONArray times = object.getJSONArray("times");
+            crash.count = object.getInt("count") - times.length();
+            for (int i = 0; i < times.length(); i++)
+                crash.occur(times.getLong(i));
+            return crash;
+        }
+
+        /**
+         * @return The hash of the fingerprint of this crash
+         */
+        public String getHash()
+        {
+            return this.hash;
+        }
+
+        /**
+         * @return The exception class of this crash
+         */
+        public String getTitle()
+        {
+            return this.title;
+        }
+
+        /**
+         * @return The number of times this crash happened
+         */
+        public int getCount()
+        {
+            return this.count;
+        }
+
+        public long getFirstTime()
+        {
+            return this.firstTime;
+        }
+
+        public long getLastTime()
+        {
+            return this.lastTime;
+        }
+
+        /**
+         * @return The times of the last occurrences, the oldest first
+         */
+        public List<Long> getTimes()
+        {
+            final List<Long> times = new ArrayList<>();
+            for (int i = Math.max(0, this.count - MAX_TIMES); i < this.count; i++)
+                times.add(this.times[i % MAX_TIMES]);
+            return Collections.unmodifiableList(times);
+        }
+
+        /**
+         * @return The gzipped report of the latest occurrence
+         */
+        public Path getReportFile()
+        {
+            return this.store.directory.resolve(this.hash + ".txt.gz");
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.title + " (" + this.hash + ") x" + this.count;
+        }
+    }
+}
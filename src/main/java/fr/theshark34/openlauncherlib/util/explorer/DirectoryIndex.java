@@ -0,0 +1,211 @@
+package fr.theshark34.openlauncherlib.util.explorer;
+
+import fr.theshark34.openlauncherlib.FailException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * The Directory Index
+ *
+ * <p>
+ * A persistent index of directory listings, used to list a directory recursively
+ * without walking it entirely at each launch.
+ * Each indexed directory is stored with its last modified time, which changes when an entry is
+ * added, removed or renamed in it: unchanged directories are not listed again, only their
+ * sub-directories are checked.
+ * </p>
+ * <p>
+ * Code example :
+ *
+ * <pre>{@code
+ *     DirectoryIndex index = new DirectoryIndex(Paths.get("libraries.idx"));
+ *     List<Path> jars = Explorer.dir("libraries").allRecursive(index).files().glob("*.jar").get();
+ * }</pre>
+ *
+ * @see ExploredDirectory#allRecursive(DirectoryIndex)
+ */
+public class DirectoryIndex
+{
+    /**
+     * Directories modified less than this time before being listed are listed again next time,
+     * as a change in the same timestamp granularity wouldn't be noticed.
+     */
+    private static final long RACY_DELAY = 2000;
+
+    /**
+     * The file where the index is saved
+     */
+    private final Path file;
+
+    /**
+     * The indexed directories
+     */
+    private final Map<Path, Node> nodes = new HashMap<>();
+
+    private boolean loaded;
+    private boolean dirty;
+
+    /**
+     * The Directory Index
+     *
+     * @param file The file where the index is saved
+     */
+    public DirectoryIndex(Path file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * List the sub-files and sub-directory of a given one, recursively, in the same order
+     * as {@link FilesUtil#listRecursive(Path)}, then save the index if it changed.
+     *
+     * @param directory The directory to list
+     * @return The generated list of files
+     */
+    public synchronized FileList listRecursive(Path directory)
+    {
+        try
+        {
+            this.load();
+
+            final Path root = directory.toAbsolutePath();
+            final List<Path> files = new ArrayList<>();
+            final Set<Path> directories = new HashSet<>();
+            final Set<Path> visited = new HashSet<>();
+            if(Files.isDirectory(root)) this.walk(directory, files, directories, visited);
+
+            if(this.nodes.keySet().removeIf(dir -> dir.startsWith(root) && !visited.contains(dir)))
+                this.dirty = true;
+
+            this.save();
+            return new FileList(files, directories);
+        } catch (IOException e)
+        {
+            throw new FailException(e.getMessage(), e);
+        }
+    }
+
+    private void walk(Path dir, List<Path> files, Set<Path> directories, Set<Path> visited) throws IOException
+    {
+        final Path key = dir.toAbsolutePath();
+        visited.add(key);
+
+        final long lastModified = Files.getLastModifiedTime(dir).toMillis();
+        Node node = this.nodes.get(key);
+        if(node == null || node.lastModified != lastModified)
+        {
+            node = list(dir, lastModified);
+            this.nodes.put(key, node);
+            this.dirty = true;
+        }
+
+        for (int i = 0; i < node.names.size(); i++)
+        {
+            final Path child = dir.resolve(node.names.get(i));
+            if(node.directories.get(i))
+            {
+                this.walk(child, files, directories, visited);
+                directories.add(child);
+            }
+            files.add(child);
+        }
+    }
+
+    private static Node list(Path dir, long lastModified) throws IOException
+    {
+        final Node node = new Node(System.currentTimeMillis() - lastModified < RACY_DELAY ? -1 : lastModified);
+        try(final DirectoryStream<Path> stream = Files.newDirectoryStream(dir))
+        {
+            for (Path child : stream)
+            {
+                node.names.add(child.getFileName().toString());
+                node.directories.add(Files.readAttributes(child, BasicFileAttributes.class).isDirectory());
+            }
+        }
+        return node;
+    }
+
+    private void load() throws IOException
+    {
+        if(this.loaded) return;
+        this.loaded = true;
+
+        if(Files.notExists(this.file)) return;
+
+        Node node = null;
+        for (String line : Files.readAllLines(this.file, StandardCharsets.UTF_8))
+        {
+            // D <tab> lastModified <tab> path, then one f/d <tab> name line per entry
+            final String[] parts = line.split("\t", line.startsWith("D\t") ? 3 : 2);
+            if(parts.length == 3)
+            {
+                node = new Node(Long.parseLong(parts[1]));
+                this.nodes.put(Paths.get(parts[2]), node);
+            }
+            else if(node != null && parts.length == 2)
+            {
+                node.names.add(parts[1]);
+                node.directories.add(parts[0].equals("d"));
+            }
+        }
+    }
+
+    private void save() throws IOException
+    {
+        if(!this.dirty) return;
+        this.dirty = false;
+
+        if(this.file.getParent() != null) Files.createDirectories(this.file.getParent());
+        final Path tmp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+        try(final BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8))
+        {
+            for (Map.Entry<Path, Node> entry : this.nodes.entrySet())
+            {
+                final Node node = entry.getValue();
+                writer.write("D\t" + node.lastModified + "\t" + entry.getKey());
+                writer.newLine();
+
+                for (int i = 0; i < node.names.size(); i++)
+                {
+                    writer.write((node.directories.get(i) ? "d\t" : "f\t") + node.names.get(i));
+                    writer.newLine();
+                }
+            }
+        }
+        Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Return the file where the index is saved
+     *
+     * @return The index file
+     */
+    public Path getFile()
+    {
+        return this.file;
+    }
+
+    /**
+     * An indexed directory listing
+     */
+    private static class Node
+    {
+        private final long lastModified;
+        private final List<String> names = new ArrayList<>();
+        private final List<Boolean> directories = new ArrayList<>();
+
+        private Node(long lastModified)
+        {
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -64,7 +64,21 @@ public class ExploredDirectory
      */
     public FileList allRecursive()
     {
-        return new FileList(FilesUtil.listRecursive(this.directory));
+        return FilesUtil.walkRecursive(this.directory);
+    }
+
+    /**
+     * Generate a list of all files and folders, recursively (sub-folder and sub-files included)
+     * in this folder, only listing again the directories that changed since the last call
+     *
+     * @param index The index remembering the directory listings
+     * @return The generated list
+     * @see DirectoryIndex
+     * @see FileList
+     */
+    public FileList allRecursive(DirectoryIndex index)
+    {
+        return index.listRecursive(this.directory);
     }
 
     /**
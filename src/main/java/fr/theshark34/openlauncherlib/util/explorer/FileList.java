@@ -20,11 +20,19 @@ package fr.theshark34.openlauncherlib.util.explorer;
 
 import fr.flowarg.openlauncherlib.ModifiedByFlow;
 
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * The File List
@@ -47,6 +55,27 @@ public class FileList
      */
     protected List<Path> files;
 
+    /**
+     * The files of the list known to be directories, or null if the types are unknown
+     * (they are then checked on the file system)
+     */
+    protected Set<Path> directories;
+
+    /**
+     * The attributes of the files of the list read while listing them, or null if they are unknown
+     */
+    protected Map<Path, BasicFileAttributes> attributes;
+
+    /**
+     * The filter to apply to the files when the list is read, or null
+     */
+    private Predicate<Path> filter;
+
+    /**
+     * True if lists filtering this one are reading its files
+     */
+    private boolean shared;
+
     /**
      * The File List, empty
      */
@@ -65,6 +94,30 @@ public class FileList
         this.files = files;
     }
 
+    /**
+     * The File List, with pre-defined files which types are already known
+     *
+     * @param files       The files
+     * @param directories The files that are directories
+     */
+    public FileList(List<Path> files, Set<Path> directories)
+    {
+        this.files = files;
+        this.directories = directories;
+    }
+
+    /**
+     * The File List, with pre-defined files which attributes were already read
+     *
+     * @param files      The files
+     * @param attributes The attributes of the files
+     */
+    public FileList(List<Path> files, Map<Path, BasicFileAttributes> attributes)
+    {
+        this.files = files;
+        this.attributes = attributes;
+    }
+
     /**
      * Add all the given files to the list
      *
@@ -82,7 +135,16 @@ public class FileList
      */
     public void add(List<Path> files)
     {
+        if (this.filter != null || this.shared)
+        {
+            // Lists derived from this one are still reading the current files
+            this.files = new ArrayList<>(this.get());
+            this.shared = false;
+        }
+
         this.files.addAll(files);
+        this.directories = null;
+        this.attributes = null;
     }
 
     /**
@@ -104,13 +166,70 @@ public class FileList
      */
     public FileList match(String regex)
     {
-        List<Path> matching = new ArrayList<>();
+        return this.match(Pattern.compile(regex));
+    }
+
+    /**
+     * Create a new list with all the files with a path matching
+     * the given pattern
+     *
+     * @param pattern The pattern to apply to the whole path
+     * @return The generated list
+     */
+    public FileList match(Pattern pattern)
+    {
+        return this.derive(f -> pattern.matcher(f.toString()).matches());
+    }
+
+    /**
+     * Create a new list with all the files matched by the given matcher
+     *
+     * @param matcher The matcher to apply
+     * @return The generated list
+     * @see java.nio.file.FileSystem#getPathMatcher(String)
+     */
+    public FileList match(PathMatcher matcher)
+    {
+        return this.derive(matcher::matches);
+    }
 
-        for (Path f : files)
-            if (f.toString().matches(regex))
-                matching.add(f);
+    /**
+     * Create a new list with all the files matching the given glob,
+     * like <code>*.jar</code>. A glob without any directory separator
+     * is applied to the file names only, otherwise to the whole paths
+     *
+     * @param glob The glob to apply
+     * @return The generated list
+     */
+    public FileList glob(String glob)
+    {
+        final boolean name = glob.indexOf('/') == -1 && glob.indexOf('\\') == -1;
+        if (name && glob.startsWith("*") && !containsGlobChars(glob.substring(1)))
+        {
+            // *.jar : no need for a matcher
+            final String suffix = glob.substring(1);
+            return this.derive(f -> {
+                final Path fileName = f.getFileName();
+                return fileName != null && fileName.toString().endsWith(suffix);
+            });
+        }
 
-        return new FileList(matching);
+        final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        if (!name)
+            return this.match(matcher);
+
+        return this.derive(f -> {
+            final Path fileName = f.getFileName();
+            return fileName != null && matcher.matches(fileName);
+        });
+    }
+
+    private static boolean containsGlobChars(String str)
+    {
+        for (int i = 0; i < str.length(); i++)
+            if ("*?[]{}\\".indexOf(str.charAt(i)) != -1)
+                return true;
+        return false;
     }
 
     /**
@@ -121,13 +240,7 @@ public class FileList
      */
     public FileList dirs()
     {
-        List<Path> dirs = new ArrayList<>();
-
-        for (Path f : files)
-            if (Files.isDirectory(f))
-                dirs.add(f);
-
-        return new FileList(dirs);
+        return this.derive(this::isDirectory);
     }
 
     /**
@@ -138,13 +251,49 @@ public class FileList
      */
     public FileList files()
     {
-        List<Path> files = new ArrayList<>();
+        return this.derive(f -> !this.isDirectory(f));
+    }
 
-        for (Path f : this.files)
-            if (!Files.isDirectory(f))
-                files.add(f);
+    /**
+     * Return the attributes of a file of the list, as read while listing it
+     *
+     * @param f The file
+     * @return Its attributes, or null if they weren't read with the list
+     */
+    public BasicFileAttributes getAttributes(Path f)
+    {
+        return this.attributes != null ? this.attributes.get(f) : null;
+    }
+
+    private boolean isDirectory(Path f)
+    {
+        final BasicFileAttributes attrs = this.getAttributes(f);
+        if (attrs != null) return attrs.isDirectory();
+        return this.directories != null ? this.directories.contains(f) : Files.isDirectory(f);
+    }
+
+    /**
+     * Create a list filtering this one, nothing is copied until it is read
+     */
+    private FileList derive(Predicate<Path> predicate)
+    {
+        this.shared = true;
 
-        return new FileList(files);
+        final FileList list = new FileList(this.files);
+        list.filter = this.filter == null ? predicate : this.filter.and(predicate);
+        list.directories = this.directories;
+        list.attributes = this.attributes;
+        return list;
+    }
+
+    /**
+     * Return the files of this list as a stream, the filters are applied lazily
+     *
+     * @return The files stream
+     */
+    public Stream<Path> stream()
+    {
+        return this.filter == null ? this.files.stream() : this.files.stream().filter(this.filter);
     }
 
     /**
@@ -154,6 +303,24 @@ public class FileList
      */
     public List<Path> get()
     {
-        return files;
+        if (this.filter != null)
+        {
+            final List<Path> filtered = new ArrayList<>();
+            for (Path f : this.files)
+                if (this.filter.test(f))
+                    filtered.add(f);
+
+            this.files = filtered;
+            this.filter = null;
+            this.shared = false;
+        }
+        else if (this.shared)
+        {
+            // The returned list can be modified, the derived lists keep reading the current files
+            this.files = new ArrayList<>(this.files);
+            this.shared = false;
+        }
+
+        return this.files;
     }
 }
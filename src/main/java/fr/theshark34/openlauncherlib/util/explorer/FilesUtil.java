@@ -21,10 +21,19 @@ package fr.theshark34.openlauncherlib.util.explorer;
 import fr.flowarg.openlauncherlib.ModifiedByFlow;
 import fr.theshark34.openlauncherlib.FailException;
 
+import java.io.IOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -49,16 +58,69 @@ public class FilesUtil
      * @return The generated list of files
      */
     public static List<Path> listRecursive(final Path directory)
+    {
+        return walkRecursive(directory).get();
+    }
+
+    /**
+     * List the sub-files and sub-directory of a given one, recursively, in a single
+     * walk of the tree : the attributes read for each file are kept in the returned list,
+     * so filtering it doesn't access the file system again
+     *
+     * @param directory The directory to list
+     * @return The generated list of files, with their attributes
+     * @see FileList#getAttributes(Path)
+     */
+    public static FileList walkRecursive(final Path directory)
     {
         final List<Path> files = new ArrayList<>();
-        final List<Path> fs = list(directory);
+        final Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        if (!Files.isDirectory(directory))
+            return new FileList(files, attributes);
+
+        try
+        {
+            Files.walkFileTree(directory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                {
+                    attributes.put(dir, attrs);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                {
+                    // Directories are added after their content, like the previous recursive listing
+                    files.add(file);
+                    attributes.put(file, attrs);
+                    return FileVisitResult.CONTINUE;
+                }
 
-        for (final Path f : fs)
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException
+                {
+                    if (!(exc instanceof FileSystemLoopException)) throw exc;
+                    files.add(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException
+                {
+                    if (exc != null) throw exc;
+                    if (!dir.equals(directory)) files.add(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e)
         {
-            if (Files.isDirectory(f)) files.addAll(listRecursive(f));
-            files.add(f);
+            throw new FailException(e.getMessage(), e);
         }
-        return files;
+
+        attributes.remove(directory);
+        return new FileList(files, attributes);
     }
 
 
@@ -0,0 +1,277 @@
+package fr.theshark34.openlauncherlib.util.log;
+
+import fr.theshark34.openlauncherlib.util.LogUtil;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The Async Log Sink
+ *
+ * <p>
+ * Deliver the logs to another sink from its own thread : {@link #write(byte[], int, int)} only copies
+ * the bytes to a bounded queue, so a slow sink doesn't slow down the thread reading the process output.
+ * The queued chunks are gathered in batches, given to the sink when they reach <code>batchBytes</code>
+ * or when the oldest one waited <code>flushMillis</code>.
+ * When the queue is full, the {@link OverflowPolicy} decides what happens.
+ * </p>
+ */
+public class AsyncLogSink implements LogSink
+{
+    /**
+     * What to do when the queue is full
+     */
+    public enum OverflowPolicy
+    {
+        /**
+         * Drop the bytes being written
+         */
+        DROP_NEWEST,
+        /**
+         * Drop the oldest queued bytes to make room
+         */
+        DROP_OLDEST,
+        /**
+         * Wait for the sink to catch up, the reading thread (and so the process) is then slowed down
+         */
+        BLOCK
+    }
+
+    public static final int DEFAULT_QUEUE_BYTES = 8 * 1024 * 1024;
+    public static final int DEFAULT_BATCH_BYTES = 64 * 1024;
+    public static final long DEFAULT_FLUSH_MILLIS = 100;
+
+    private final LogSink sink;
+    private final int queueBytes;
+    private final int batchBytes;
+    private final long flushMillis;
+    private final OverflowPolicy policy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = this.lock.newCondition();
+    private final Condition notFull = this.lock.newCondition();
+    private final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+    private int queued;
+    private boolean closed;
+    private long dropped;
+
+    private final Thread thread;
+
+    /**
+     * An async sink with the default queue and batch sizes, dropping the oldest bytes when the queue is full
+     *
+     * @param sink The sink to deliver to
+     */
+    public AsyncLogSink(LogSink sink)
+    {
+        this(sink, DEFAULT_QUEUE_BYTES, DEFAULT_BATCH_BYTES, DEFAULT_FLUSH_MILLIS, OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * @param sink        The sink to deliver to
+     * @param queueBytes  The maximum number of bytes waiting in the queue
+     * @param batchBytes  The size from which a batch is delivered without waiting
+     * @param flushMillis The maximum time a chunk waits before being delivered
+     * @param policy      What to do when the queue is full
+     */
+    public AsyncLogSink(LogSink sink, int queueBytes, int batchBytes, long flushMillis, OverflowPolicy policy)
+    {
+        this.sink = sink;
+        this.queueBytes = queueBytes;
+        this.batchBytes = batchBytes;
+        this.flushMillis = flushMillis;
+        this.policy = policy;
+
+        this.thread = new Thread(this::drain, "OpenLauncherLib-LogSink-" + sink.getClass().getSimpleName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException
+    {
+        if (length == 0) return;
+
+        final byte[] chunk = Arrays.copyOfRange(bytes, offset, offset + length);
+        this.lock.lock();
+        try
+        {
+            if (this.closed) throw new IOException("The sink is closed");
+
+            while (this.queued + length > this.queueBytes && !this.queue.isEmpty())
+            {
+                if (this.policy == OverflowPolicy.DROP_NEWEST)
+                {
+                    this.dropped += length;
+                    return;
+                }
+                else if (this.policy == OverflowPolicy.DROP_OLDEST)
+                {
+                    final byte[] oldest = this.queue.poll();
+                    this.queued -= oldest.length;
+                    this.dropped += oldest.length;
+                }
+                else
+                {
+                    try
+                    {
+                        this.notFull.await();
+                    } catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for the sink", e);
+                    }
+                    if (this.closed) throw new IOException("The sink is closed");
+                }
+            }
+
+            this.queue.add(chunk);
+            this.queued += length;
+            this.notEmpty.signal();
+        } finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    private void drain()
+    {
+        byte[] batch = new byte[this.batchBytes];
+        int size = 0;
+        long deadline = 0;
+        boolean failed = false;
+
+        while (true)
+        {
+            byte[] chunk = null;
+            boolean end = false;
+
+            this.lock.lock();
+            try
+            {
+                while (this.queue.isEmpty() && !this.closed)
+                {
+                    final long remaining = size == 0 ? Long.MAX_VALUE : deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+
+                    try
+                    {
+                        if (remaining == Long.MAX_VALUE) this.notEmpty.await();
+                        else this.notEmpty.awaitNanos(remaining);
+                    } catch (InterruptedException e)
+                    {
+                        end = true;
+                        break;
+                    }
+                }
+
+                chunk = this.queue.poll();
+                if (chunk != null)
+                {
+                    this.queued -= chunk.length;
+                    this.notFull.signalAll();
+                }
+                else if (this.closed) end = true;
+            } finally
+            {
+                this.lock.unlock();
+            }
+
+            if (chunk != null)
+            {
+                if (size == 0) deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.flushMillis);
+                if (size + chunk.length > batch.length)
+                    batch = Arrays.copyOf(batch, Math.max(batch.length * 2, size + chunk.length));
+                System.arraycopy(chunk, 0, batch, size, chunk.length);
+                size += chunk.length;
+            }
+
+            if (size > 0 && (end || size >= this.batchBytes || System.nanoTime() - deadline >= 0))
+            {
+                if (!failed)
+                {
+                    try
+                    {
+                        this.sink.write(batch, 0, size);
+                        this.sink.flush();
+                    } catch (IOException e)
+                    {
+                        // The sink is broken, its bytes are dropped from now on
+                        LogUtil.err("log-err", e.toString());
+                        failed = true;
+                    }
+                }
+                if (batch.length > this.batchBytes * 4) batch = new byte[this.batchBytes];
+                size = 0;
+            }
+
+            if (end) break;
+        }
+
+        try
+        {
+            this.sink.close();
+        } catch (IOException e)
+        {
+            LogUtil.err("log-err", e.toString());
+        }
+    }
+
+    /**
+     * Deliver the queued bytes, then close the sink
+     *
+     * @throws IOException If interrupted while waiting for the delivery
+     */
+    @Override
+    public void close() throws IOException
+    {
+        this.lock.lock();
+        try
+        {
+            this.closed = true;
+            this.notEmpty.signal();
+            this.notFull.signalAll();
+        } finally
+        {
+            this.lock.unlock();
+        }
+
+        try
+        {
+            this.thread.join();
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing the sink", e);
+        }
+    }
+
+    /**
+     * @return The number of bytes dropped because the queue was full
+     */
+    public long getDropped()
+    {
+        this.lock.lock();
+        try
+        {
+            return this.dropped;
+        } finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    public LogSink getSink()
+    {
+        return this.sink;
+    }
+
+    public OverflowPolicy getPolicy()
+    {
+        return this.policy;
+    }
+}
@@ -0,0 +1,39 @@
+package fr.theshark34.openlauncherlib.util.log;
+
+import java.io.PrintStream;
+
+/**
+ * A sink printing the logs to the console, as they are
+ */
+public class ConsoleLogSink implements LogSink
+{
+    private final PrintStream out;
+
+    /**
+     * A sink printing to {@link System#out}
+     */
+    public ConsoleLogSink()
+    {
+        this(System.out);
+    }
+
+    /**
+     * @param out The stream to print to
+     */
+    public ConsoleLogSink(PrintStream out)
+    {
+        this.out = out;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length)
+    {
+        this.out.write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush()
+    {
+        this.out.flush();
+    }
+}
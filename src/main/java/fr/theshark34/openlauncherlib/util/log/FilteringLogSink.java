@@ -0,0 +1,109 @@
+package fr.theshark34.openlauncherlib.util.log;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * A sink only forwarding the lines accepted by a filter to another sink
+ *
+ * <p>
+ * The lines are parsed by {@link LogLineParser} and the filter gets the parsed {@link LogLine} :
+ * checking the level or the logger doesn't decode anything. The lines without a level following a line
+ * with one continue its message (like a stack trace) : they are forwarded with it, without being filtered.
+ * </p>
+ *
+ * <pre>{@code
+ *     launcher.addLogSink(new FilteringLogSink(new RollingFileLogSink(gameDir.resolve("logs/errors.log")), FilteringLogSink.minLevel(LogLevel.WARN)));
+ *     launcher.addLogSink(new FilteringLogSink(uiSink, line -> line.loggerStartsWith("net.minecraftforge")));
+ * }</pre>
+ */
+public class FilteringLogSink implements LogSink
+{
+    private final LogSink delegate;
+    private final Predicate<LogLine> filter;
+    private final LogLineSplitter splitter = new LogLineSplitter(Integer.MAX_VALUE) {
+        private boolean structured;
+        private boolean accepted;
+
+        @Override
+        void onLine(LogLine line)
+        {
+            this.structured |= line.isStructured();
+            if (line.isStructured() || !this.structured)
+                this.accepted = filter.test(line);
+
+            if (this.accepted)
+                append(line.bytes, line.offset, line.length);
+        }
+    };
+
+    private byte[] out = new byte[8 * 1024];
+    private int outLength;
+
+    /**
+     * @param delegate The sink receiving the accepted lines
+     * @param filter   The filter, the given line is only valid during the call
+     */
+    public FilteringLogSink(LogSink delegate, Predicate<LogLine> filter)
+    {
+        this.delegate = delegate;
+        this.filter = filter;
+    }
+
+    /**
+     * @param level The minimum level
+     * @return A filter accepting the lines of this level or above (the lines without a level are refused)
+     */
+    public static Predicate<LogLine> minLevel(LogLevel level)
+    {
+        return line -> line.getLevel() != LogLevel.UNKNOWN && line.getLevel().compareTo(level) >= 0;
+    }
+
+    /**
+     * @param prefix The logger prefix
+     * @return A filter accepting the lines whose logger starts with the prefix
+     */
+    public static Predicate<LogLine> logger(String prefix)
+    {
+        return line -> line.loggerStartsWith(prefix);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException
+    {
+        this.splitter.split(bytes, offset, length);
+        this.forward();
+    }
+
+    private void append(byte[] bytes, int offset, int length)
+    {
+        if (this.outLength + length + 1 > this.out.length)
+            this.out = Arrays.copyOf(this.out, Math.max(this.out.length * 2, this.outLength + length + 1));
+        System.arraycopy(bytes, offset, this.out, this.outLength, length);
+        this.outLength += length;
+        this.out[this.outLength++] = '\n';
+    }
+
+    private void forward() throws IOException
+    {
+        if (this.outLength == 0) return;
+
+        this.delegate.write(this.out, 0, this.outLength);
+        this.outLength = 0;
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        this.delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.splitter.finish();
+        this.forward();
+        this.delegate.close();
+    }
+}
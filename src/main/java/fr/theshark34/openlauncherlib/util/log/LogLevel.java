@@ -0,0 +1,46 @@
+package fr.theshark34.openlauncherlib.util.log;
+
+/**
+ * The level of a log line
+ *
+ * @see LogLineParser
+ */
+public enum LogLevel
+{
+    TRACE,
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    FATAL,
+    /**
+     * A line without a level (not in the log4j format)
+     */
+    UNKNOWN;
+
+    private final byte[] name = this.name().getBytes();
+
+    /**
+     * Find the level written in some bytes, without decoding them
+     *
+     * @param bytes  The bytes array
+     * @param offset The offset of the level name
+     * @param length The length of the level name
+     * @return The level, or {@link #UNKNOWN}
+     */
+    public static LogLevel of(byte[] bytes, int offset, int length)
+    {
+        for (LogLevel level : VALUES)
+        {
+            if (level.name.length != length) continue;
+
+            boolean equal = true;
+            for (int i = 0; i < length && equal; i++)
+                equal = bytes[offset + i] == level.name[i];
+            if (equal) return level;
+        }
+        return UNKNOWN;
+    }
+
+    private static final LogLevel[] VALUES = values();
+}
@@ -0,0 +1,98 @@
+package fr.theshark34.openlauncherlib.util.log;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The Log Level Counter
+ *
+ * <p>
+ * Count the lines of the logs by level, for a dashboard for example. The counts only grow :
+ * read them at regular intervals to get a rate (errors per minute...). A line without a level following
+ * a line with one continues its message (like a stack trace) and isn't counted, the lines written before
+ * the first line with a level are counted as {@link LogLevel#UNKNOWN}.
+ * </p>
+ *
+ * <pre>{@code
+ *     LogLevelCounter counter = new LogLevelCounter();
+ *     launcher.setLogLevelCounter(counter);
+ *     ...
+ *     long errors = counter.getCount(LogLevel.ERROR) + counter.getCount(LogLevel.FATAL);
+ * }</pre>
+ *
+ * @see fr.theshark34.openlauncherlib.util.ProcessLogManager#setLevelCounter(LogLevelCounter)
+ */
+public class LogLevelCounter implements LogSink
+{
+    /**
+     * Only the start of a line is needed to read its level
+     */
+    private static final int MAX_LINE_LENGTH = 1024;
+
+    private final AtomicLongArray counts = new AtomicLongArray(LogLevel.values().length);
+    private final LogLineSplitter splitter = new LogLineSplitter(MAX_LINE_LENGTH) {
+        private boolean structured;
+
+        @Override
+        void onLine(LogLine line)
+        {
+            this.structured |= line.isStructured();
+            if (line.isStructured() || !this.structured)
+                counts.incrementAndGet(line.getLevel().ordinal());
+        }
+    };
+
+    @Override
+    public synchronized void write(byte[] bytes, int offset, int length) throws IOException
+    {
+        this.splitter.split(bytes, offset, length);
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        this.splitter.finish();
+    }
+
+    /**
+     * @param level The level
+     * @return The number of lines of this level
+     */
+    public long getCount(LogLevel level)
+    {
+        return this.counts.get(level.ordinal());
+    }
+
+    /**
+     * @return The number of counted lines
+     */
+    public long getTotal()
+    {
+        long total = 0;
+        for (int i = 0; i < this.counts.length(); i++)
+            total += this.counts.get(i);
+        return total;
+    }
+
+    /**
+     * @return The number of lines of each level
+     */
+    public Map<LogLevel, Long> getCounts()
+    {
+        final Map<LogLevel, Long> result = new EnumMap<>(LogLevel.class);
+        for (LogLevel level : LogLevel.values())
+            result.put(level, this.getCount(level));
+        return result;
+    }
+
+    /**
+     * Set all the counts to 0
+     */
+    public void reset()
+    {
+        for (int i = 0; i < this.counts.length(); i++)
+            this.counts.set(i, 0);
+    }
+}
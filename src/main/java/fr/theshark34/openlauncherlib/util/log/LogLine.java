@@ -0,0 +1,103 @@
+package fr.theshark34.openlauncherlib.util.log;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A log line parsed by {@link LogLineParser}
+ *
+ * <p>
+ * The line only points to the parts of the bytes it was parsed from, nothing is decoded until
+ * a getter returning a String is called. It is reused from one line to the next one, so it must
+ * not be kept : call {@link #toString()} or the getters to keep its content.
+ * </p>
+ */
+public final class LogLine
+{
+    byte[] bytes;
+    int offset;
+    int length;
+
+    LogLevel level = LogLevel.UNKNOWN;
+    boolean structured;
+    int timeStart, timeEnd;
+    int threadStart, threadEnd;
+    int loggerStart, loggerEnd;
+    int messageStart;
+
+    /**
+     * @return True if the line was in the log4j format, false for a continuation line (like a stack trace)
+     */
+    public boolean isStructured()
+    {
+        return this.structured;
+    }
+
+    /**
+     * @return The level, {@link LogLevel#UNKNOWN} if the line isn't structured
+     */
+    public LogLevel getLevel()
+    {
+        return this.level;
+    }
+
+    public String getTime()
+    {
+        return this.structured ? this.decode(this.timeStart, this.timeEnd) : null;
+    }
+
+    public String getThread()
+    {
+        return this.structured ? this.decode(this.threadStart, this.threadEnd) : null;
+    }
+
+    /**
+     * @return The logger, null if the line doesn't have one (like the vanilla lines)
+     */
+    public String getLogger()
+    {
+        return this.structured && this.loggerStart != -1 ? this.decode(this.loggerStart, this.loggerEnd) : null;
+    }
+
+    /**
+     * Check the logger without decoding it
+     *
+     * @param prefix The prefix to look for, in ASCII
+     * @return True if the line has a logger starting with the prefix
+     */
+    public boolean loggerStartsWith(String prefix)
+    {
+        if (!this.structured || this.loggerStart == -1 || this.loggerEnd - this.loggerStart < prefix.length())
+            return false;
+
+        for (int i = 0; i < prefix.length(); i++)
+            if (this.bytes[this.loggerStart + i] != (byte) prefix.charAt(i))
+                return false;
+        return true;
+    }
+
+    /**
+     * @return The message, or the whole line if it isn't structured
+     */
+    public String getMessage()
+    {
+        return this.decode(this.structured ? this.messageStart : this.offset, this.end());
+    }
+
+    private int end()
+    {
+        int end = this.offset + this.length;
+        if (end > this.offset && this.bytes[end - 1] == '\r') end--;
+        return end;
+    }
+
+    private String decode(int start, int end)
+    {
+        return new String(this.bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.decode(this.offset, this.end());
+    }
+}
@@ -0,0 +1,85 @@
+package fr.theshark34.openlauncherlib.util.log;
+
+/**
+ * The Log Line Parser
+ *
+ * <p>
+ * Parse the lines in the log4j format used by Minecraft, without regex nor allocation :
+ * <code>[time] [thread/LEVEL]: message</code> (vanilla) or
+ * <code>[time] [thread/LEVEL] [logger]: message</code> (Forge and others).
+ * </p>
+ */
+public class LogLineParser
+{
+    /**
+     * Parse a line
+     *
+     * @param bytes  The bytes array
+     * @param offset The offset of the line
+     * @param length The length of the line, without the line feed
+     * @param line   The line to fill
+     * @return True if the line is in the log4j format
+     */
+    public static boolean parse(byte[] bytes, int offset, int length, LogLine line)
+    {
+        line.bytes = bytes;
+        line.offset = offset;
+        line.length = length;
+        line.level = LogLevel.UNKNOWN;
+        line.structured = false;
+        line.loggerStart = -1;
+
+        final int end = offset + length;
+
+        // [time]
+        int i = offset;
+        if (i >= end || bytes[i] != '[') return false;
+        final int timeEnd = indexOf(bytes, ++i, end, (byte) ']');
+        if (timeEnd == -1) return false;
+        line.timeStart = i;
+        line.timeEnd = timeEnd;
+
+        // [thread/LEVEL], the thread name can contain slashes so the level is after the last one
+        i = timeEnd + 1;
+        if (i + 1 >= end || bytes[i] != ' ' || bytes[i + 1] != '[') return false;
+        i += 2;
+        final int threadEnd = indexOf(bytes, i, end, (byte) ']');
+        if (threadEnd == -1) return false;
+        int slash = threadEnd - 1;
+        while (slash >= i && bytes[slash] != '/') slash--;
+        if (slash < i) return false;
+
+        final LogLevel level = LogLevel.of(bytes, slash + 1, threadEnd - slash - 1);
+        if (level == LogLevel.UNKNOWN) return false;
+        line.threadStart = i;
+        line.threadEnd = slash;
+
+        // optional [logger], then ": "
+        i = threadEnd + 1;
+        if (i + 1 < end && bytes[i] == ' ' && bytes[i + 1] == '[')
+        {
+            final int loggerEnd = indexOf(bytes, i + 2, end, (byte) ']');
+            if (loggerEnd == -1) return false;
+            line.loggerStart = i + 2;
+            line.loggerEnd = loggerEnd;
+            i = loggerEnd + 1;
+        }
+
+        if (i >= end || bytes[i] != ':') return false;
+        i++;
+        if (i < end && bytes[i] == ' ') i++;
+
+        line.messageStart = i;
+        line.level = level;
+        line.structured = true;
+        return true;
+    }
+
+    private static int indexOf(byte[] bytes, int from, int end, byte b)
+    {
+        for (int i = from; i < end; i++)
+            if (bytes[i] == b)
+                return i;
+        return -1;
+    }
+}
@@ -0,0 +1,80 @@
+package fr.theshark34.openlauncherlib.util.log;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Split the batches given to a {@link LogSink} into parsed lines
+ *
+ * <p>
+ * The complete lines are parsed where they are, only a line split between two batches is copied
+ * (up to <code>maxLineLength</code> bytes, the end of a longer line is ignored).
+ * </p>
+ */
+abstract class LogLineSplitter
+{
+    private final LogLine line = new LogLine();
+    private final int maxLineLength;
+    private byte[] carry = new byte[256];
+    private int carryLength;
+
+    LogLineSplitter(int maxLineLength)
+    {
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Split a batch, {@link #onLine(LogLine)} is called for each line it ends
+     */
+    void split(byte[] bytes, int offset, int length) throws IOException
+    {
+        final int end = offset + length;
+        int start = offset;
+        for (int i = offset; i < end; i++)
+        {
+            if (bytes[i] != '\n') continue;
+
+            if (this.carryLength > 0)
+            {
+                this.keep(bytes, start, i - start);
+                this.parse(this.carry, 0, this.carryLength);
+                this.carryLength = 0;
+            }
+            else this.parse(bytes, start, i - start);
+            start = i + 1;
+        }
+        this.keep(bytes, start, end - start);
+    }
+
+    /**
+     * Give the last line if it wasn't ended
+     */
+    void finish() throws IOException
+    {
+        if (this.carryLength > 0)
+            this.parse(this.carry, 0, this.carryLength);
+        this.carryLength = 0;
+    }
+
+    private void parse(byte[] bytes, int offset, int length) throws IOException
+    {
+        LogLineParser.parse(bytes, offset, length, this.line);
+        this.onLine(this.line);
+    }
+
+    private void keep(byte[] bytes, int offset, int length)
+    {
+        length = Math.min(length, this.maxLineLength - this.carryLength);
+        if (length <= 0) return;
+
+        if (this.carryLength + length > this.carry.length)
+            this.carry = Arrays.copyOf(this.carry, Math.max(this.carry.length * 2, this.carryLength + length));
+        System.arraycopy(bytes, offset, this.carry, this.carryLength, length);
+        this.carryLength += length;
+    }
+
+    /**
+     * @param line The parsed line, only valid during the call
+     */
+    abstract void onLine(LogLine line) throws IOException;
+}
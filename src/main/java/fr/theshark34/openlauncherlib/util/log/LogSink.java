@@ -0,0 +1,44 @@
+package fr.theshark34.openlauncherlib.util.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The Log Sink
+ *
+ * <p>
+ * A destination of the raw output of a process, registered with
+ * {@link fr.theshark34.openlauncherlib.util.ProcessLogManager#addSink(LogSink)}.
+ * The bytes are given as they were read, in batches : a batch usually ends with a full line
+ * but a line can be split between two batches.
+ * </p>
+ *
+ * @see AsyncLogSink
+ */
+public interface LogSink extends Closeable
+{
+    /**
+     * Write a batch of bytes
+     *
+     * @param bytes  The bytes array, only valid during the call
+     * @param offset The offset of the first byte
+     * @param length The number of bytes
+     * @throws IOException If it failed
+     */
+    void write(byte[] bytes, int offset, int length) throws IOException;
+
+    /**
+     * Flush what was written, called after each batch
+     *
+     * @throws IOException If it failed
+     */
+    default void flush() throws IOException {}
+
+    /**
+     * Close the sink, called once the process output ended
+     *
+     * @throws IOException If it failed
+     */
+    @Override
+    default void close() throws IOException {}
+}
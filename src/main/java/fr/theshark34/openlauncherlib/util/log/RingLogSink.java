@@ -0,0 +1,53 @@
+package fr.theshark34.openlauncherlib.util.log;
+
+import fr.theshark34.openlauncherlib.util.LogRingBuffer;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * A sink keeping the last lines of the logs in memory
+ *
+ * @see LogRingBuffer
+ */
+public class RingLogSink implements LogSink
+{
+    private final LogRingBuffer ringBuffer;
+
+    /**
+     * @param maxLines The maximum number of lines kept
+     * @param maxBytes The maximum number of bytes kept
+     */
+    public RingLogSink(int maxLines, int maxBytes)
+    {
+        this(new LogRingBuffer(maxLines, maxBytes));
+    }
+
+    /**
+     * @param ringBuffer The buffer where the lines are kept
+     */
+    public RingLogSink(LogRingBuffer ringBuffer)
+    {
+        this.ringBuffer = ringBuffer;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length)
+    {
+        this.ringBuffer.append(bytes, offset, length);
+    }
+
+    /**
+     * @param charset The charset of the logs
+     * @return The kept lines, from the oldest to the newest
+     */
+    public List<String> getLines(Charset charset)
+    {
+        return this.ringBuffer.getLines(charset);
+    }
+
+    public LogRingBuffer getRingBuffer()
+    {
+        return this.ringBuffer;
+    }
+}
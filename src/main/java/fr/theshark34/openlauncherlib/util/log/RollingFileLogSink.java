@@ -0,0 +1,362 @@
+package fr.theshark34.openlauncherlib.util.log;
+
+import fr.theshark34.openlauncherlib.util.LogUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A sink writing the logs to a file, rolled when it gets too big or too old
+ *
+ * <p>
+ * When the file reaches <code>maxSize</code> (at the end of a line) or was started more than
+ * <code>maxAge</code> milliseconds ago, it is renamed to a segment named after the time
+ * (<code>latest.log</code> becomes <code>latest-20220101-120000-000.log</code>) and a new file is started.
+ * The segments can be gzipped, and only the <code>maxFiles</code> newest ones are kept, within
+ * <code>maxTotalSize</code> bytes. Compression and clean up run on a background thread, never on the
+ * thread writing the logs.
+ * </p>
+ *
+ * <p>
+ * A file left by a previous run is rolled to a segment when the sink opens it, so launching a program again
+ * never overwrites the logs of the one that crashed. Without segments, it is replaced like a <code>latest.log</code>.
+ * </p>
+ *
+ * <pre>{@code
+ *     RollingFileLogSink sink = new RollingFileLogSink(gameDir.resolve("logs/latest.log"), 64 * 1024 * 1024, 10);
+ *     sink.setMaxAge(TimeUnit.DAYS.toMillis(1));
+ *     sink.setCompress(true);
+ *     sink.setMaxTotalSize(512 * 1024 * 1024);
+ * }</pre>
+ */
+public class RollingFileLogSink implements LogSink
+{
+    private static volatile ExecutorService defaultExecutor;
+
+    private final Path file;
+    private final String prefix;
+    private final String suffix;
+    private long maxSize;
+    private long maxAge = Long.MAX_VALUE;
+    private int maxFiles;
+    private long maxTotalSize = Long.MAX_VALUE;
+    private boolean compress;
+    private Executor executor;
+
+    private FileChannel channel;
+    private long size;
+    private long openTime;
+    private String lastSegment;
+    private int sameSegment;
+
+    /**
+     * A sink writing to a single file, never rolled (a file left by a previous run is replaced)
+     *
+     * @param file The file to write
+     */
+    public RollingFileLogSink(Path file)
+    {
+        this(file, Long.MAX_VALUE, 0);
+    }
+
+    /**
+     * @param file     The file to write
+     * @param maxSize  The size in bytes from which the file is rolled
+     * @param maxFiles The number of rolled files kept
+     */
+    public RollingFileLogSink(Path file, long maxSize, int maxFiles)
+    {
+        this.file = file;
+        this.maxSize = maxSize;
+        this.maxFiles = maxFiles;
+
+        final String name = file.getFileName().toString();
+        final int dot = name.lastIndexOf('.');
+        this.prefix = (dot > 0 ? name.substring(0, dot) : name) + "-";
+        this.suffix = dot > 0 ? name.substring(dot) : "";
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException
+    {
+        if (this.channel != null && System.currentTimeMillis() - this.openTime >= this.maxAge)
+            this.roll();
+
+        if (this.size + length >= this.maxSize)
+        {
+            // Roll after the last complete line
+            int end = offset + length;
+            while (end > offset && bytes[end - 1] != '\n') end--;
+
+            if (end > offset)
+            {
+                this.append(bytes, offset, end - offset);
+                this.roll();
+                length -= end - offset;
+                offset = end;
+            }
+        }
+
+        if (length > 0)
+            this.append(bytes, offset, length);
+    }
+
+    private void append(byte[] bytes, int offset, int length) throws IOException
+    {
+        if (this.channel == null)
+            this.open();
+
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+        while (buffer.hasRemaining())
+            this.channel.write(buffer);
+        this.size += length;
+    }
+
+    private void open() throws IOException
+    {
+        if (this.file.getParent() != null)
+            Files.createDirectories(this.file.getParent());
+
+        // A file left by a previous run
+        if (this.maxFiles > 0 && Files.exists(this.file) && Files.size(this.file) > 0)
+            this.rollFile();
+
+        this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.size = 0;
+        this.openTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Close the current file and rename it to a new segment, a new file is started with the next write
+     *
+     * @throws IOException If it failed
+     */
+    protected void roll() throws IOException
+    {
+        this.close();
+        this.size = 0;
+
+        if (this.maxFiles <= 0)
+        {
+            Files.deleteIfExists(this.file);
+            return;
+        }
+
+        this.rollFile();
+    }
+
+    private void rollFile() throws IOException
+    {
+        final Path segment = this.file.resolveSibling(this.nextSegmentName());
+        Files.move(this.file, segment, StandardCopyOption.REPLACE_EXISTING);
+
+        final boolean compress = this.compress;
+        this.getExecutor().execute(() -> {
+            try
+            {
+                if (compress)
+                    gzip(segment);
+                this.cleanUp();
+            } catch (IOException e)
+            {
+                LogUtil.err("log-err", e.toString());
+            }
+        });
+    }
+
+    private String nextSegmentName()
+    {
+        final String time = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        if (time.equals(this.lastSegment))
+            return this.prefix + time + "-" + ++this.sameSegment + this.suffix;
+
+        this.lastSegment = time;
+        this.sameSegment = 0;
+        return this.prefix + time + this.suffix;
+    }
+
+    private static void gzip(Path segment) throws IOException
+    {
+        final Path gz = segment.resolveSibling(segment.getFileName() + ".gz");
+        final Path tmp = segment.resolveSibling(segment.getFileName() + ".gz.tmp");
+        if (Files.notExists(segment))
+            return; // Already deleted by the retention
+
+        try (final InputStream in = Files.newInputStream(segment); final OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024))
+        {
+            final byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+        } catch (IOException e)
+        {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, gz, StandardCopyOption.REPLACE_EXISTING);
+        Files.delete(segment);
+    }
+
+    /**
+     * Delete the oldest segments beyond <code>maxFiles</code> or <code>maxTotalSize</code>
+     */
+    private void cleanUp() throws IOException
+    {
+        final Path directory = this.file.toAbsolutePath().getParent();
+        final List<Path> segments = new ArrayList<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory, this::isSegment))
+        {
+            for (Path segment : stream)
+                segments.add(segment);
+        }
+
+        // Newest first, the names are in time order
+        segments.sort((a, b) -> b.getFileName().toString().compareTo(a.getFileName().toString()));
+
+        long total = 0;
+        for (int i = 0; i < segments.size(); i++)
+        {
+            final Path segment = segments.get(i);
+            total += Files.size(segment);
+            if (i >= this.maxFiles || total > this.maxTotalSize)
+                Files.deleteIfExists(segment);
+        }
+    }
+
+    private boolean isSegment(Path path)
+    {
+        final String name = path.getFileName().toString();
+        if (!name.startsWith(this.prefix))
+            return false;
+
+        final String end = name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+        return end.endsWith(this.suffix) && end.length() > this.prefix.length() + this.suffix.length()
+                && Character.isDigit(end.charAt(this.prefix.length()));
+    }
+
+    private Executor getExecutor()
+    {
+        if (this.executor != null)
+            return this.executor;
+
+        if (defaultExecutor == null)
+        {
+            synchronized (RollingFileLogSink.class)
+            {
+                if (defaultExecutor == null)
+                {
+                    defaultExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                        final Thread thread = new Thread(runnable, "OpenLauncherLib-LogRoller");
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return defaultExecutor;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (this.channel != null)
+            this.channel.close();
+        this.channel = null;
+    }
+
+    public Path getFile()
+    {
+        return this.file;
+    }
+
+    public long getMaxSize()
+    {
+        return this.maxSize;
+    }
+
+    /**
+     * @param maxSize The size in bytes from which the file is rolled
+     */
+    public void setMaxSize(long maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
+    public long getMaxAge()
+    {
+        return this.maxAge;
+    }
+
+    /**
+     * @param maxAge The time in milliseconds after which the file is rolled (checked when the logs are written)
+     */
+    public void setMaxAge(long maxAge)
+    {
+        this.maxAge = maxAge;
+    }
+
+    public int getMaxFiles()
+    {
+        return this.maxFiles;
+    }
+
+    /**
+     * @param maxFiles The number of segments kept, 0 to delete the file instead of rolling it
+     */
+    public void setMaxFiles(int maxFiles)
+    {
+        this.maxFiles = maxFiles;
+    }
+
+    public long getMaxTotalSize()
+    {
+        return this.maxTotalSize;
+    }
+
+    /**
+     * @param maxTotalSize The maximum size in bytes of all the segments together
+     */
+    public void setMaxTotalSize(long maxTotalSize)
+    {
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    public boolean isCompress()
+    {
+        return this.compress;
+    }
+
+    /**
+     * @param compress True to gzip the segments
+     */
+    public void setCompress(boolean compress)
+    {
+        this.compress = compress;
+    }
+
+    /**
+     * @param executor The executor compressing and deleting the segments, a shared low priority thread by default
+     */
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
+}
@@ -0,0 +1,94 @@
+package fr.theshark34.openlauncherlib.util.log;
+
+import fr.theshark34.openlauncherlib.util.AsyncUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * A sink giving the logs to a UI, a batch of lines at a time
+ *
+ * <p>
+ * The listener is called once per batch with all its complete lines, on the Event Dispatch Thread
+ * by default, so a console component can append them with a single update.
+ * Wrap it in an {@link AsyncLogSink} (what {@link fr.theshark34.openlauncherlib.util.ProcessLogManager#addSink(LogSink)}
+ * does) to choose how often the batches are delivered.
+ * </p>
+ */
+public class UILogSink implements LogSink
+{
+    private final Consumer<List<String>> listener;
+    private final Executor executor;
+    private final Charset charset;
+    private final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+
+    /**
+     * A sink calling the listener on the Event Dispatch Thread, with UTF-8 logs
+     *
+     * @param listener The listener receiving the lines
+     */
+    public UILogSink(Consumer<List<String>> listener)
+    {
+        this(listener, AsyncUtil.edt(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param listener The listener receiving the lines
+     * @param executor The executor calling the listener
+     * @param charset  The charset of the logs
+     */
+    public UILogSink(Consumer<List<String>> listener, Executor executor, Charset charset)
+    {
+        this.listener = listener;
+        this.executor = executor;
+        this.charset = charset;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length)
+    {
+        final List<String> lines = new ArrayList<>();
+        int start = offset;
+        for (int i = offset; i < offset + length; i++)
+        {
+            if (bytes[i] != '\n') continue;
+
+            this.partial.write(bytes, start, i - start);
+            lines.add(this.decode());
+            start = i + 1;
+        }
+        this.partial.write(bytes, start, offset + length - start);
+
+        this.deliver(lines);
+    }
+
+    @Override
+    public void close()
+    {
+        final List<String> lines = new ArrayList<>();
+        if (this.partial.size() > 0)
+            lines.add(this.decode());
+        this.deliver(lines);
+    }
+
+    private String decode()
+    {
+        final byte[] line = this.partial.toByteArray();
+        this.partial.reset();
+
+        int length = line.length;
+        if (length > 0 && line[length - 1] == '\r') length--;
+        return new String(line, 0, length, this.charset);
+    }
+
+    private void deliver(List<String> lines)
+    {
+        if (!lines.isEmpty())
+            this.executor.execute(() -> this.listener.accept(lines));
+    }
+}
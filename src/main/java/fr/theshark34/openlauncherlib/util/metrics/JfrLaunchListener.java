@@ -0,0 +1,105 @@
+package fr.theshark34.openlauncherlib.util.metrics;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A listener recording each launch phase as a JFR event named <code>fr.theshark34.openlauncherlib.LaunchPhase</code>
+ * (in the <code>OpenLauncherLib</code> category, with the launch name, the phase and its duration)
+ *
+ * <p>
+ * The library targets Java 8, so the event type is defined at runtime through <code>jdk.jfr.EventFactory</code>,
+ * which only exists since Java 11 : {@link #register()} does nothing on older versions. The events are only
+ * written while a recording is running.
+ * </p>
+ */
+public class JfrLaunchListener implements LaunchMetricsListener
+{
+    private static JfrLaunchListener registered;
+
+    private final Object factory;
+    private final Method newEvent;
+    private final Method set;
+    private final Method commit;
+
+    private JfrLaunchListener() throws ReflectiveOperationException
+    {
+        final Class<?> elementClass = Class.forName("jdk.jfr.AnnotationElement");
+        final Constructor<?> element = elementClass.getConstructor(Class.class, Object.class);
+        final Class<?> descriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+        final Constructor<?> descriptor = descriptorClass.getConstructor(Class.class, String.class, List.class);
+        final Class<?> label = Class.forName("jdk.jfr.Label");
+
+        final List<Object> annotations = Arrays.asList(
+                element.newInstance(Class.forName("jdk.jfr.Name"), "fr.theshark34.openlauncherlib.LaunchPhase"),
+                element.newInstance(label, "Launch Phase"),
+                element.newInstance(Class.forName("jdk.jfr.Category"), new String[]{"OpenLauncherLib"})
+        );
+        final List<Object> fields = Arrays.asList(
+                descriptor.newInstance(String.class, "launch", Collections.singletonList(element.newInstance(label, "Launch"))),
+                descriptor.newInstance(String.class, "phase", Collections.singletonList(element.newInstance(label, "Phase"))),
+                descriptor.newInstance(long.class, "phaseDuration", Arrays.asList(
+                        element.newInstance(label, "Phase Duration"),
+                        element.newInstance(Class.forName("jdk.jfr.Timespan"), "NANOSECONDS")))
+        );
+
+        final Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+        this.factory = factoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+        this.newEvent = factoryClass.getMethod("newEvent");
+
+        final Class<?> eventClass = Class.forName("jdk.jfr.Event");
+        this.set = eventClass.getMethod("set", int.class, Object.class);
+        this.commit = eventClass.getMethod("commit");
+    }
+
+    /**
+     * Add the JFR listener to the {@link LaunchMetrics} listeners, if the running Java supports it
+     *
+     * @return True if it is registered, false if JFR events can't be defined by this Java version
+     */
+    public static synchronized boolean register()
+    {
+        if (registered != null)
+            return true;
+
+        try
+        {
+            registered = new JfrLaunchListener();
+        } catch (ReflectiveOperationException | LinkageError e)
+        {
+            return false;
+        }
+
+        LaunchMetrics.addListener(registered);
+        return true;
+    }
+
+    /**
+     * Remove the JFR listener if it was registered
+     */
+    public static synchronized void unregister()
+    {
+        if (registered != null)
+            LaunchMetrics.removeListener(registered);
+        registered = null;
+    }
+
+    @Override
+    public void onPhase(LaunchMetrics metrics, LaunchPhase phase, long nanos)
+    {
+        try
+        {
+            final Object event = this.newEvent.invoke(this.factory);
+            this.set.invoke(event, 0, metrics.getName());
+            this.set.invoke(event, 1, phase.name());
+            this.set.invoke(event, 2, nanos);
+            this.commit.invoke(event);
+        } catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Can't record the JFR event", e);
+        }
+    }
+}
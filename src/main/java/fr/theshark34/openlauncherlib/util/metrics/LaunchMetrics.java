@@ -0,0 +1,147 @@
+package fr.theshark34.openlauncherlib.util.metrics;
+
+import fr.theshark34.openlauncherlib.util.LogUtil;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Launch Metrics
+ *
+ * <p>
+ * The time spent in each {@link LaunchPhase phase} of a launch, in nanoseconds. The metrics are created by
+ * {@link fr.theshark34.openlauncherlib.minecraft.MinecraftLauncher#createExternalProfile} or
+ * {@link fr.flowarg.openlauncherlib.NoFramework#launch}, carried by the
+ * {@link fr.theshark34.openlauncherlib.external.ExternalLaunchProfile} and completed by
+ * {@link fr.theshark34.openlauncherlib.external.ExternalLauncher#launch()}. A phase run twice is summed.
+ * </p>
+ *
+ * <p>
+ * Each timed phase is given to the listeners added with {@link #addListener(LaunchMetricsListener)},
+ * and recorded as a JFR event once {@link JfrLaunchListener#register()} was called.
+ * </p>
+ *
+ * <pre>{@code
+ *     LaunchMetrics.addListener((metrics, phase, nanos) -> dashboard.record(phase.name(), nanos));
+ *     ...
+ *     Process process = launcher.launch();
+ *     System.out.println(launcher.getProfile().getMetrics());
+ * }</pre>
+ */
+public class LaunchMetrics
+{
+    private static final List<LaunchMetricsListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final Map<LaunchPhase, Long> phases = new EnumMap<>(LaunchPhase.class);
+
+    /**
+     * @param name The name of the launch (the version for example), given to the listeners
+     */
+    public LaunchMetrics(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Add a listener notified of the phases timed by every launch
+     *
+     * @param listener The listener to add
+     */
+    public static void addListener(LaunchMetricsListener listener)
+    {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * @param listener The listener to remove
+     */
+    public static void removeListener(LaunchMetricsListener listener)
+    {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Record a phase which started at the given time and just ended
+     *
+     * @param phase The phase
+     * @param start The {@link System#nanoTime()} at the start of the phase
+     * @return The current {@link System#nanoTime()}, the start of the next phase
+     */
+    public long end(LaunchPhase phase, long start)
+    {
+        final long now = System.nanoTime();
+        this.record(phase, now - start);
+        return now;
+    }
+
+    /**
+     * Record the duration of a phase
+     *
+     * @param phase The phase
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(LaunchPhase phase, long nanos)
+    {
+        synchronized (this.phases)
+        {
+            this.phases.merge(phase, nanos, Long::sum);
+        }
+
+        for (LaunchMetricsListener listener : LISTENERS)
+        {
+            try
+            {
+                listener.onPhase(this, phase, nanos);
+            } catch (RuntimeException e)
+            {
+                LogUtil.err("metrics-err", e.toString());
+            }
+        }
+    }
+
+    /**
+     * @return The name of the launch
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * @param phase The phase
+     * @return The duration of the phase in nanoseconds, -1 if it wasn't timed
+     */
+    public long get(LaunchPhase phase)
+    {
+        synchronized (this.phases)
+        {
+            return this.phases.getOrDefault(phase, -1L);
+        }
+    }
+
+    /**
+     * @return The duration in nanoseconds of each timed phase
+     */
+    public Map<LaunchPhase, Long> getPhases()
+    {
+        synchronized (this.phases)
+        {
+            return Collections.unmodifiableMap(new EnumMap<>(this.phases));
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder sb = new StringBuilder(this.name).append(" :");
+        for (Map.Entry<LaunchPhase, Long> entry : this.getPhases().entrySet())
+            sb.append(' ').append(entry.getKey().name().toLowerCase()).append('=')
+                    .append(TimeUnit.NANOSECONDS.toMicros(entry.getValue()) / 1000.0).append("ms");
+        return sb.toString();
+    }
+}
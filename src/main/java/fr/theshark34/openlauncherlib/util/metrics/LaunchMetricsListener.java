@@ -0,0 +1,19 @@
+package fr.theshark34.openlauncherlib.util.metrics;
+
+/**
+ * A listener notified of each phase timed by {@link LaunchMetrics}
+ *
+ * @see LaunchMetrics#addListener(LaunchMetricsListener)
+ */
+@FunctionalInterface
+public interface LaunchMetricsListener
+{
+    /**
+     * Called when a phase was timed, on the thread which ran it
+     *
+     * @param metrics The metrics of the launch
+     * @param phase   The phase
+     * @param nanos   The duration of the phase in nanoseconds
+     */
+    void onPhase(LaunchMetrics metrics, LaunchPhase phase, long nanos);
+}
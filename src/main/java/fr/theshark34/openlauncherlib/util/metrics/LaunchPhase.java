@@ -0,0 +1,48 @@
+package fr.theshark34.openlauncherlib.util.metrics;
+
+/**
+ * The phases of a launch timed by {@link LaunchMetrics}
+ */
+public enum LaunchPhase
+{
+    /**
+     * {@link fr.theshark34.openlauncherlib.minecraft.MinecraftLauncher#checkFolder} checking the game folder
+     */
+    CHECK_FOLDER,
+    /**
+     * Listing the libraries folder
+     */
+    SCAN_LIBRARIES,
+    /**
+     * Reading a launch plan from the cache
+     */
+    LOAD_PLAN,
+    /**
+     * Reading and parsing the version JSON files
+     */
+    PARSE_JSON,
+    /**
+     * Checking the size and the hash of the libraries
+     */
+    VERIFY_LIBRARIES,
+    /**
+     * Building the classpath
+     */
+    CLASSPATH,
+    /**
+     * Building the game and vm arguments
+     */
+    ARGUMENTS,
+    /**
+     * Writing the argument files
+     */
+    ARGUMENT_FILES,
+    /**
+     * {@link ProcessBuilder#start()}
+     */
+    PROCESS_START,
+    /**
+     * From the start of the process to its first output (only timed when the logs are enabled)
+     */
+    FIRST_OUTPUT
+}
@@ -0,0 +1,331 @@
+package fr.theshark34.openlauncherlib.util.monitor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Process Monitor
+ *
+ * <p>
+ * Sample the resources used by a launched process and its descendants on Linux, from
+ * <code>/proc/&lt;pid&gt;/stat</code>, <code>status</code> and <code>io</code> : CPU time, resident memory,
+ * threads and storage I/O. The samples are taken at a fixed interval on a thread shared by all the monitors
+ * and kept in {@link ResourceSamples}. The monitor stops itself when the process exits.
+ * </p>
+ *
+ * <pre>{@code
+ *     Process process = launcher.launch();
+ *     ProcessMonitor monitor = new ProcessMonitor(process, 1000, 600).start();
+ *     ...
+ *     ResourceSamples samples = monitor.getSamples().copy();
+ *     long rss = samples.getRss(samples.size() - 1);
+ * }</pre>
+ */
+public class ProcessMonitor implements Closeable
+{
+    private static final Path PROC = Paths.get("/proc");
+
+    /**
+     * The CPU times of /proc are in clock ticks, USER_HZ is 100 on Linux
+     */
+    private static final long NANOS_PER_TICK = 10_000_000L;
+
+    private static volatile ScheduledExecutorService scheduler;
+
+    private final Process process;
+    private final long pid;
+    private final long interval;
+    private final ResourceSamples samples;
+    private ScheduledFuture<?> task;
+
+    /**
+     * @param process        The process to monitor
+     * @param intervalMillis The time between two samples in milliseconds
+     * @param capacity       The number of samples kept
+     */
+    public ProcessMonitor(Process process, long intervalMillis, int capacity)
+    {
+        this(process, pid(process), intervalMillis, capacity);
+    }
+
+    /**
+     * @param pid            The id of the process to monitor
+     * @param intervalMillis The time between two samples in milliseconds
+     * @param capacity       The number of samples kept
+     */
+    public ProcessMonitor(long pid, long intervalMillis, int capacity)
+    {
+        this(null, pid, intervalMillis, capacity);
+    }
+
+    private ProcessMonitor(Process process, long pid, long intervalMillis, int capacity)
+    {
+        this.process = process;
+        this.pid = pid;
+        this.interval = intervalMillis;
+        this.samples = new ResourceSamples(capacity);
+    }
+
+    /**
+     * @return True if the processes can be monitored (on Linux)
+     */
+    public static boolean isSupported()
+    {
+        return Files.isDirectory(PROC.resolve("self"));
+    }
+
+    /**
+     * Return the id of a process, on Java 8 too
+     *
+     * @param process The process
+     * @return Its pid
+     * @throws IllegalStateException If it can't be read
+     */
+    public static long pid(Process process)
+    {
+        try
+        {
+            return (long)Process.class.getMethod("pid").invoke(process);
+        } catch (NoSuchMethodException e)
+        {
+            // Java 8 : java.lang.UNIXProcess.pid
+            try
+            {
+                final Field field = process.getClass().getDeclaredField("pid");
+                field.setAccessible(true);
+                return field.getInt(process);
+            } catch (ReflectiveOperationException ex)
+            {
+                throw new IllegalStateException("Can't read the pid of " + process, ex);
+            }
+        } catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Can't read the pid of " + process, e);
+        }
+    }
+
+    /**
+     * Start sampling, the first sample is taken immediately
+     *
+     * @return This monitor
+     * @throws IllegalStateException If the processes can't be monitored on this system
+     */
+    public synchronized ProcessMonitor start()
+    {
+        if (!isSupported())
+            throw new IllegalStateException("The processes can only be monitored on Linux");
+
+        if (this.task == null)
+            this.task = getScheduler().scheduleAtFixedRate(this::sampleSafely, 0, this.interval, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    private void sampleSafely()
+    {
+        try
+        {
+            this.sample();
+        } catch (RuntimeException e)
+        {
+            // A failing task would be cancelled silently
+            this.close();
+        }
+    }
+
+    /**
+     * Take a sample now, the monitor is closed if the process exited
+     */
+    public void sample()
+    {
+        if (this.process != null && !this.process.isAlive())
+        {
+            this.close();
+            return;
+        }
+
+        final List<Long> pids = new ArrayList<>();
+        this.collect(this.pid, pids, null);
+        if (pids.isEmpty())
+        {
+            this.close();
+            return;
+        }
+
+        long cpuTime = 0;
+        long rss = 0;
+        int threads = 0;
+        long readBytes = 0;
+        long writeBytes = 0;
+        boolean io = true;
+        for (long pid : pids)
+        {
+            final Path dir = PROC.resolve(Long.toString(pid));
+
+            final String stat = read(dir.resolve("stat"));
+            if (stat == null) continue;
+            // The name between parentheses can contain spaces, the fields after it are : state ppid ... utime(12) stime(13)
+            final String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            cpuTime += (Long.parseLong(fields[11]) + Long.parseLong(fields[12])) * NANOS_PER_TICK;
+
+            final String status = read(dir.resolve("status"));
+            if (status != null)
+            {
+                rss += field(status, "VmRSS:") * 1024;
+                threads += (int)field(status, "Threads:");
+            }
+
+            final String ioStats = read(dir.resolve("io"));
+            if (ioStats != null)
+            {
+                readBytes += field(ioStats, "read_bytes:");
+                writeBytes += field(ioStats, "write_bytes:");
+            }
+            else io = false;
+        }
+
+        this.samples.add(System.currentTimeMillis(), cpuTime, rss, threads, pids.size(), io ? readBytes : -1, io ? writeBytes : -1);
+    }
+
+    /**
+     * Add a process and its descendants, from the <code>children</code> of its threads, or from the parent
+     * of every process if the kernel doesn't give the children
+     */
+    private void collect(long pid, List<Long> pids, Map<Long, List<Long>> children)
+    {
+        final Path dir = PROC.resolve(Long.toString(pid));
+        if (!Files.isDirectory(dir))
+            return;
+        pids.add(pid);
+
+        if (children == null && Files.exists(dir.resolve("task").resolve(Long.toString(pid)).resolve("children")))
+        {
+            try (final DirectoryStream<Path> tasks = Files.newDirectoryStream(dir.resolve("task")))
+            {
+                for (Path task : tasks)
+                {
+                    final String list = read(task.resolve("children"));
+                    if (list == null || list.isEmpty()) continue;
+                    for (String child : list.split(" "))
+                        this.collect(Long.parseLong(child), pids, null);
+                }
+            } catch (IOException ignored) {}
+            return;
+        }
+
+        final Map<Long, List<Long>> tree = children != null ? children : parents();
+        for (long child : tree.getOrDefault(pid, new ArrayList<>()))
+            this.collect(child, pids, tree);
+    }
+
+    /**
+     * @return The children of each process, read from the parent of every process
+     */
+    private static Map<Long, List<Long>> parents()
+    {
+        final Map<Long, List<Long>> children = new HashMap<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(PROC, path -> Character.isDigit(path.getFileName().toString().charAt(0))))
+        {
+            for (Path dir : stream)
+            {
+                final String stat = read(dir.resolve("stat"));
+                if (stat == null) continue;
+                final String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ", 3);
+                children.computeIfAbsent(Long.parseLong(fields[1]), parent -> new ArrayList<>()).add(Long.parseLong(dir.getFileName().toString()));
+            }
+        } catch (IOException ignored) {}
+        return children;
+    }
+
+    /**
+     * @return The number after the given name in a <code>name: value</code> file, 0 if it isn't there
+     */
+    private static long field(String content, String name)
+    {
+        final int index = content.indexOf(name);
+        if (index == -1) return 0;
+
+        int i = index + name.length();
+        while (i < content.length() && !Character.isDigit(content.charAt(i))) i++;
+        long value = 0;
+        while (i < content.length() && Character.isDigit(content.charAt(i)))
+            value = value * 10 + (content.charAt(i++) - '0');
+        return value;
+    }
+
+    private static String read(Path file)
+    {
+        try
+        {
+            return new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim();
+        } catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    private static ScheduledExecutorService getScheduler()
+    {
+        if (scheduler == null)
+        {
+            synchronized (ProcessMonitor.class)
+            {
+                if (scheduler == null)
+                {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        final Thread thread = new Thread(runnable, "OpenLauncherLib-ProcessMonitor");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * @return True if the monitor is sampling
+     */
+    public synchronized boolean isRunning()
+    {
+        return this.task != null && !this.task.isDone();
+    }
+
+    /**
+     * Stop sampling, the samples are kept
+     */
+    @Override
+    public synchronized void close()
+    {
+        if (this.task != null)
+            this.task.cancel(false);
+    }
+
+    public long getPid()
+    {
+        return this.pid;
+    }
+
+    public long getInterval()
+    {
+        return this.interval;
+    }
+
+    public ResourceSamples getSamples()
+    {
+        return this.samples;
+    }
+}
@@ -0,0 +1,196 @@
+package fr.theshark34.openlauncherlib.util.monitor;
+
+/**
+ * The Resource Samples
+ *
+ * <p>
+ * A fixed size ring of the samples taken by a {@link ProcessMonitor}, stored in primitive arrays (one per value) :
+ * adding a sample never allocates. When it is full, the oldest sample is replaced. The samples are indexed from
+ * 0 (the oldest kept) to {@link #size()} - 1 (the newest).
+ * </p>
+ *
+ * <p>
+ * A sample can be added by the monitor between two calls of the getters, which would then read from two different
+ * samples or shifted indexes : read several values from a {@link #copy()}, that isn't modified anymore.
+ * </p>
+ */
+public class ResourceSamples
+{
+    private final long[] times;
+    private final long[] cpuTimes;
+    private final long[] rss;
+    private final int[] threads;
+    private final int[] processes;
+    private final long[] readBytes;
+    private final long[] writeBytes;
+
+    /** Number of samples ever added, the position of a sample is its number modulo the capacity. */
+    private long count;
+
+    /**
+     * @param capacity The number of samples kept
+     */
+    public ResourceSamples(int capacity)
+    {
+        this.times = new long[capacity];
+        this.cpuTimes = new long[capacity];
+        this.rss = new long[capacity];
+        this.threads = new int[capacity];
+        this.processes = new int[capacity];
+        this.readBytes = new long[capacity];
+        this.writeBytes = new long[capacity];
+    }
+
+    synchronized void add(long time, long cpuTime, long rss, int threads, int processes, long readBytes, long writeBytes)
+    {
+        final int i = (int)(this.count++ % this.times.length);
+        this.times[i] = time;
+        this.cpuTimes[i] = cpuTime;
+        this.rss[i] = rss;
+        this.threads[i] = threads;
+        this.processes[i] = processes;
+        this.readBytes[i] = readBytes;
+        this.writeBytes[i] = writeBytes;
+    }
+
+    /**
+     * Copy the kept samples, at once
+     *
+     * @return A ring with the same capacity and samples, that the monitor doesn't modify
+     */
+    public synchronized ResourceSamples copy()
+    {
+        final ResourceSamples copy = new ResourceSamples(this.times.length);
+        for (int i = 0; i < this.size(); i++)
+        {
+            final int position = this.position(i);
+            copy.add(this.times[position], this.cpuTimes[position], this.rss[position], this.threads[position],
+                    this.processes[position], this.readBytes[position], this.writeBytes[position]);
+        }
+        return copy;
+    }
+
+    private int position(int index)
+    {
+        if (index < 0 || index >= this.size())
+            throw new IndexOutOfBoundsException("Sample " + index + ", size " + this.size());
+        return (int)((this.count - this.size() + index) % this.times.length);
+    }
+
+    /**
+     * @return The number of kept samples
+     */
+    public synchronized int size()
+    {
+        return (int)Math.min(this.count, this.times.length);
+    }
+
+    public int getCapacity()
+    {
+        return this.times.length;
+    }
+
+    /**
+     * @return The number of samples ever taken
+     */
+    public synchronized long getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * @param index The sample index
+     * @return The {@link System#currentTimeMillis()} of the sample
+     */
+    public synchronized long getTime(int index)
+    {
+        return this.times[this.position(index)];
+    }
+
+    /**
+     * @param index The sample index
+     * @return The CPU time (user and system) used by the live processes since they started, in nanoseconds
+     */
+    public synchronized long getCpuTime(int index)
+    {
+        return this.cpuTimes[this.position(index)];
+    }
+
+    /**
+     * @param index The sample index
+     * @return The resident memory of the processes, in bytes
+     */
+    public synchronized long getRss(int index)
+    {
+        return this.rss[this.position(index)];
+    }
+
+    /**
+     * @param index The sample index
+     * @return The number of threads of the processes
+     */
+    public synchronized int getThreads(int index)
+    {
+        return this.threads[this.position(index)];
+    }
+
+    /**
+     * @param index The sample index
+     * @return The number of processes (the monitored one and its descendants)
+     */
+    public synchronized int getProcesses(int index)
+    {
+        return this.processes[this.position(index)];
+    }
+
+    /**
+     * @param index The sample index
+     * @return The bytes read from the storage since the processes started, -1 if it can't be read
+     */
+    public synchronized long getReadBytes(int index)
+    {
+        return this.readBytes[this.position(index)];
+    }
+
+    /**
+     * @param index The sample index
+     * @return The bytes written to the storage since the processes started, -1 if it can't be read
+     */
+    public synchronized long getWriteBytes(int index)
+    {
+        return this.writeBytes[this.position(index)];
+    }
+
+    /**
+     * Return the CPU usage between a sample and the previous one.
+     * The CPU time of a descendant is lost when it exits, the usage is 0 if the total went down
+     *
+     * @param index The sample index, from 1
+     * @return The number of processors used on average (1.0 for a full processor)
+     */
+    public synchronized double getCpuLoad(int index)
+    {
+        final long time = this.getTime(index) - this.getTime(index - 1);
+        final long cpuTime = this.getCpuTime(index) - this.getCpuTime(index - 1);
+        return time <= 0 || cpuTime <= 0 ? 0 : cpuTime / (time * 1_000_000.0);
+    }
+
+    /**
+     * @return The highest resident memory of the kept samples, in bytes
+     */
+    public synchronized long getMaxRss()
+    {
+        long max = 0;
+        for (int i = 0; i < this.size(); i++)
+            max = Math.max(max, this.rss[this.position(i)]);
+        return max;
+    }
+
+    /**
+     * Forget all the samples
+     */
+    public synchronized void clear()
+    {
+        this.count = 0;
+    }
+}
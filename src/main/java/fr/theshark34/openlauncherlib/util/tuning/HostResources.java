@@ -0,0 +1,198 @@
+package fr.theshark34.openlauncherlib.util.tuning;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * The Host Resources
+ *
+ * <p>
+ * The physical memory and the processors of the computer, limited by the cgroup of the launcher on Linux
+ * (in a container for example, cgroup v1 and v2). Read once with {@link #read()}.
+ * </p>
+ */
+public class HostResources
+{
+    private static final Path CGROUP = Paths.get("/sys/fs/cgroup");
+
+    private final long totalMemory;
+    private final long freeMemory;
+    private final int processors;
+    private final long cgroupMemoryLimit;
+    private final double cgroupCpuLimit;
+
+    public HostResources(long totalMemory, long freeMemory, int processors, long cgroupMemoryLimit, double cgroupCpuLimit)
+    {
+        this.totalMemory = totalMemory;
+        this.freeMemory = freeMemory;
+        this.processors = processors;
+        this.cgroupMemoryLimit = cgroupMemoryLimit;
+        this.cgroupCpuLimit = cgroupCpuLimit;
+    }
+
+    /**
+     * Read the resources of the computer
+     *
+     * @return The host resources
+     */
+    public static HostResources read()
+    {
+        long total = -1;
+        long free = -1;
+        final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean)
+        {
+            total = ((com.sun.management.OperatingSystemMXBean)os).getTotalPhysicalMemorySize();
+            free = ((com.sun.management.OperatingSystemMXBean)os).getFreePhysicalMemorySize();
+        }
+
+        long memoryLimit = -1;
+        double cpuLimit = -1;
+        if (Files.isDirectory(CGROUP))
+        {
+            final String path = cgroupPath();
+            if (Files.exists(CGROUP.resolve("cgroup.controllers")))
+            {
+                // cgroup v2 : memory.max = "max" or bytes, cpu.max = "max 100000" or "<quota> <period>"
+                final Path group = path == null ? CGROUP : CGROUP.resolve(path.substring(1));
+                memoryLimit = parseLimit(readFirst(group.resolve("memory.max"), CGROUP.resolve("memory.max")));
+                final String cpu = readFirst(group.resolve("cpu.max"), CGROUP.resolve("cpu.max"));
+                if (cpu != null)
+                {
+                    final String[] parts = cpu.split(" ");
+                    if (parts.length == 2 && !parts[0].equals("max"))
+                        cpuLimit = Double.parseDouble(parts[0]) / Double.parseDouble(parts[1]);
+                }
+            }
+            else
+            {
+                // cgroup v1, the path of the group often isn't mounted in a container
+                memoryLimit = parseLimit(readFirst(CGROUP.resolve("memory").resolve("memory.limit_in_bytes")));
+                final String quota = readFirst(CGROUP.resolve("cpu").resolve("cpu.cfs_quota_us"));
+                final String period = readFirst(CGROUP.resolve("cpu").resolve("cpu.cfs_period_us"));
+                if (quota != null && period != null && !quota.startsWith("-"))
+                    cpuLimit = Double.parseDouble(quota) / Double.parseDouble(period);
+            }
+        }
+
+        // "No limit" is written as a huge number
+        if (memoryLimit >= Long.MAX_VALUE / 2 || (total > 0 && memoryLimit >= total))
+            memoryLimit = -1;
+
+        return new HostResources(total, free, Runtime.getRuntime().availableProcessors(), memoryLimit, cpuLimit);
+    }
+
+    /**
+     * @return The path of the cgroup v2 of the launcher, from <code>/proc/self/cgroup</code>
+     */
+    private static String cgroupPath()
+    {
+        try
+        {
+            final List<String> lines = Files.readAllLines(Paths.get("/proc/self/cgroup"), StandardCharsets.UTF_8);
+            for (String line : lines)
+                if (line.startsWith("0::"))
+                    return line.substring(3);
+        } catch (IOException ignored) {}
+        return null;
+    }
+
+    private static String readFirst(Path... files)
+    {
+        for (Path file : files)
+        {
+            try
+            {
+                if (Files.isRegularFile(file))
+                    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+            } catch (IOException ignored) {}
+        }
+        return null;
+    }
+
+    private static long parseLimit(String value)
+    {
+        if (value == null || value.equals("max")) return -1;
+        try
+        {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * @return The physical memory in bytes, -1 if it can't be read
+     */
+    public long getTotalMemory()
+    {
+        return this.totalMemory;
+    }
+
+    /**
+     * @return The free physical memory in bytes when it was read, -1 if it can't be read
+     */
+    public long getFreeMemory()
+    {
+        return this.freeMemory;
+    }
+
+    /**
+     * @return The number of processors seen by the launcher
+     */
+    public int getProcessors()
+    {
+        return this.processors;
+    }
+
+    /**
+     * @return The memory limit of the cgroup in bytes, -1 if there is none
+     */
+    public long getCgroupMemoryLimit()
+    {
+        return this.cgroupMemoryLimit;
+    }
+
+    /**
+     * @return The processors limit of the cgroup (quota / period), -1 if there is none
+     */
+    public double getCgroupCpuLimit()
+    {
+        return this.cgroupCpuLimit;
+    }
+
+    /**
+     * @return The memory usable by the launched programs : the physical memory, or the cgroup limit if lower
+     */
+    public long getAvailableMemory()
+    {
+        if (this.cgroupMemoryLimit > 0 && (this.totalMemory <= 0 || this.cgroupMemoryLimit < this.totalMemory))
+            return this.cgroupMemoryLimit;
+        return this.totalMemory;
+    }
+
+    /**
+     * @return The processors usable by the launched programs : the processors, or the cgroup limit if lower
+     */
+    public int getAvailableProcessors()
+    {
+        if (this.cgroupCpuLimit > 0)
+            return Math.max(1, Math.min(this.processors, (int)Math.ceil(this.cgroupCpuLimit)));
+        return this.processors;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "memory=" + (this.totalMemory >> 20) + "M free=" + (this.freeMemory >> 20) + "M processors=" + this.processors
+                + " cgroupMemory=" + (this.cgroupMemoryLimit > 0 ? (this.cgroupMemoryLimit >> 20) + "M" : "none")
+                + " cgroupCpu=" + (this.cgroupCpuLimit > 0 ? String.valueOf(this.cgroupCpuLimit) : "none");
+    }
+}
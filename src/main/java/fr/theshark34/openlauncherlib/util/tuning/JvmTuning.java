@@ -0,0 +1,234 @@
+package fr.theshark34.openlauncherlib.util.tuning;
+
+import fr.theshark34.openlauncherlib.JavaRuntime;
+import fr.theshark34.openlauncherlib.JavaUtil;
+import fr.theshark34.openlauncherlib.external.ExternalLaunchProfile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The JVM Tuning
+ *
+ * <p>
+ * Generate the heap and GC arguments of a launched JVM from a {@link TuningProfile}, the {@link HostResources}
+ * and the flags supported by the {@link JavaRuntime} : the heap is sized from the memory left to the game
+ * (the cgroup limit in a container), and the GC is only selected if the runtime has it.
+ * </p>
+ *
+ * <pre>{@code
+ *     ExternalLaunchProfile profile = MinecraftLauncher.createExternalProfile(infos, folder, auth);
+ *     JvmTuning.apply(profile, TuningProfile.BALANCED);
+ * }</pre>
+ */
+public class JvmTuning
+{
+    /** The options of a single collector : G1NewSizePercent, ZUncommitDelay, ShenandoahGCHeuristics... */
+    private static final Pattern COLLECTOR_OPTION = Pattern.compile("(G1|Z|Shenandoah)[A-Z].*");
+    /** The options shared by several collectors, only meaningful for the one they were chosen for. */
+    private static final Set<String> GC_OPTIONS = new HashSet<>(Arrays.asList(
+            "MaxGCPauseMillis", "GCPauseIntervalMillis", "ParallelGCThreads", "ConcGCThreads", "InitiatingHeapOccupancyPercent",
+            "ParallelRefProcEnabled", "UseStringDeduplication", "DisableExplicitGC", "NewRatio", "SurvivorRatio",
+            "MaxTenuringThreshold", "NewSize", "MaxNewSize", "UseAdaptiveSizePolicy"));
+
+    /**
+     * Return the arguments of a profile, for the current host and the {@link JavaUtil#getJavaPath() launched java}
+     *
+     * @param profile The tuning profile
+     * @return The VM arguments
+     */
+    public static List<String> getVmArgs(TuningProfile profile)
+    {
+        JavaRuntime runtime;
+        try
+        {
+            runtime = JavaRuntime.get(JavaUtil.getJavaPath());
+        } catch (IOException e)
+        {
+            runtime = null;
+        }
+        return getVmArgs(profile, HostResources.read(), runtime);
+    }
+
+    /**
+     * Return the arguments of a profile
+     *
+     * @param profile The tuning profile
+     * @param host    The resources of the host
+     * @param runtime The launched runtime, null if unknown (only the flags of every version are used)
+     * @return The VM arguments
+     */
+    public static List<String> getVmArgs(TuningProfile profile, HostResources host, JavaRuntime runtime)
+    {
+        final long heap = getHeapSize(profile, host, runtime);
+        final int processors = host.getAvailableProcessors();
+        final int major = runtime == null ? 8 : runtime.getMajorVersion();
+
+        final List<String> args = new ArrayList<>();
+        switch (profile)
+        {
+            case LOW_MEMORY:
+                args.add("-Xms" + Math.min(512, heap) + "M");
+                break;
+            case BALANCED:
+                args.add("-Xms" + heap / 2 + "M");
+                break;
+            default:
+                args.add("-Xms" + heap + "M");
+        }
+        args.add("-Xmx" + heap + "M");
+
+        switch (profile)
+        {
+            case LOW_MEMORY:
+                if (processors <= 2)
+                    args.add("-XX:+UseSerialGC");
+                else
+                {
+                    args.add("-XX:+UseG1GC");
+                    // Give the unused memory back to the system
+                    if (supports(runtime, "G1PeriodicGCInterval"))
+                        args.add("-XX:G1PeriodicGCInterval=15000");
+                }
+                if (processors > 2 && supports(runtime, "UseStringDeduplication"))
+                    args.add("-XX:+UseStringDeduplication");
+                break;
+            case BALANCED:
+                args.add("-XX:+UnlockExperimentalVMOptions");
+                args.add("-XX:+UseG1GC");
+                args.add("-XX:G1NewSizePercent=20");
+                args.add("-XX:G1ReservePercent=20");
+                args.add("-XX:MaxGCPauseMillis=50");
+                args.add("-XX:G1HeapRegionSize=32M");
+                args.add("-XX:+DisableExplicitGC");
+                break;
+            case THROUGHPUT:
+                args.add("-XX:+UseParallelGC");
+                args.add("-XX:ParallelGCThreads=" + processors);
+                args.add("-XX:+DisableExplicitGC");
+                break;
+            case LOW_LATENCY:
+                if (major >= 15 && supports(runtime, "UseZGC"))
+                {
+                    args.add("-XX:+UseZGC");
+                    // Generational by default since Java 23
+                    if (major < 23 && supports(runtime, "ZGenerational"))
+                        args.add("-XX:+ZGenerational");
+                }
+                else if (supports(runtime, "UseShenandoahGC"))
+                {
+                    if (major < 15)
+                        args.add("-XX:+UnlockExperimentalVMOptions");
+                    args.add("-XX:+UseShenandoahGC");
+                }
+                else
+                {
+                    args.add("-XX:+UseG1GC");
+                    args.add("-XX:MaxGCPauseMillis=25");
+                }
+                args.add("-XX:+DisableExplicitGC");
+                break;
+        }
+
+        // The child JVM could see all the processors of the host
+        if (host.getCgroupCpuLimit() > 0 && supports(runtime, "ActiveProcessorCount"))
+            args.add("-XX:ActiveProcessorCount=" + processors);
+
+        return args;
+    }
+
+    /**
+     * Return the maximum heap of a profile : a part of the available memory (depending on the profile),
+     * leaving at least 1G (or a fifth of the memory) to the system and to the memory used outside the heap.
+     * The heap doesn't exceed the free memory either, but isn't lowered under the minimum of the profile
+     * (1G, 2G for the others) since the free memory doesn't count the caches the system can give back
+     *
+     * @param profile The tuning profile
+     * @param host    The resources of the host
+     * @param runtime The launched runtime, null if unknown
+     * @return The heap size in megabytes
+     */
+    public static long getHeapSize(TuningProfile profile, HostResources host, JavaRuntime runtime)
+    {
+        long available = host.getAvailableMemory() >> 20;
+        if (available <= 0)
+            available = 4096;
+
+        final long minimum = profile == TuningProfile.LOW_MEMORY ? 1024 : 2048;
+        final long target;
+        switch (profile)
+        {
+            case LOW_MEMORY:
+                target = clamp(available / 4, minimum, 2048);
+                break;
+            case BALANCED:
+                target = clamp(available * 2 / 5, minimum, 6144);
+                break;
+            default:
+                target = clamp(available / 2, minimum, 12288);
+        }
+
+        long heap = Math.min(target, available - Math.max(1024, available / 5));
+        final long free = host.getFreeMemory() >> 20;
+        if (free > 0)
+            heap = Math.min(heap, Math.max(minimum, free));
+        if (runtime != null && runtime.getArch() != null && !runtime.getArch().contains("64"))
+            heap = Math.min(heap, 1536);
+        if (heap >= 1024)
+            heap = heap / 256 * 256;
+        return Math.max(512, heap);
+    }
+
+    /**
+     * Replace the heap and GC arguments of a launch profile by the ones of a tuning profile.
+     * The tuning options of the previous collector (<code>-XX:G1NewSizePercent</code>, <code>-XX:MaxGCPauseMillis</code>...)
+     * are removed with it
+     *
+     * @param launchProfile The launch profile
+     * @param profile       The tuning profile
+     */
+    public static void apply(ExternalLaunchProfile launchProfile, TuningProfile profile)
+    {
+        final List<String> vmArgs = new ArrayList<>();
+        if (launchProfile.getVmArgs() != null)
+        {
+            for (String arg : launchProfile.getVmArgs())
+                if (!isTuningArg(arg))
+                    vmArgs.add(arg);
+        }
+        vmArgs.addAll(getVmArgs(profile));
+        launchProfile.setVmArgs(vmArgs);
+    }
+
+    private static boolean isTuningArg(String arg)
+    {
+        if (arg.startsWith("-Xms") || arg.startsWith("-Xmx") || arg.startsWith("-Xmn"))
+            return true;
+        if (!arg.startsWith("-XX:"))
+            return false;
+
+        // -XX:+Name, -XX:-Name or -XX:Name=value
+        String name = arg.substring(4);
+        if (name.startsWith("+") || name.startsWith("-"))
+            name = name.substring(1);
+        if (name.indexOf('=') >= 0)
+            name = name.substring(0, name.indexOf('='));
+
+        return (name.startsWith("Use") && name.endsWith("GC")) || GC_OPTIONS.contains(name) || COLLECTOR_OPTION.matcher(name).matches();
+    }
+
+    private static boolean supports(JavaRuntime runtime, String flag)
+    {
+        return runtime != null && runtime.supports(flag);
+    }
+
+    private static long clamp(long value, long min, long max)
+    {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,24 @@
+package fr.theshark34.openlauncherlib.util.tuning;
+
+/**
+ * The JVM tuning profiles of {@link JvmTuning}
+ */
+public enum TuningProfile
+{
+    /**
+     * A small heap (up to 2G) and a GC with a small footprint, for computers with little memory
+     */
+    LOW_MEMORY,
+    /**
+     * G1 with the settings of the Minecraft launcher, up to 6G of heap
+     */
+    BALANCED,
+    /**
+     * The Parallel GC with a fixed heap up to 12G, the best throughput but longer pauses (servers, chunk generation)
+     */
+    THROUGHPUT,
+    /**
+     * ZGC or Shenandoah if the runtime supports them (G1 with short pauses otherwise), with a fixed heap up to 12G
+     */
+    LOW_LATENCY
+}